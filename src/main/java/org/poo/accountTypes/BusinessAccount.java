@@ -1,38 +1,40 @@
 package org.poo.accountTypes;
 
+import org.poo.currencyExchange.Currency;
 import org.poo.currencyExchange.ExchangeRateManager;
 import org.poo.data.Account;
+import org.poo.data.CommerciantStats;
 import org.poo.data.Stats;
 import org.poo.data.User;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 public class BusinessAccount extends Account {
     private final String ownerEmail;
     private final Map<String, String> associates; // Email -> Role (manager, employee)
     private static final double DEFAULT_LIMIT = 500.0;
-    private Map<String, Double> commerciants;
     private final Map<String, Stats> statsMap;
-    // Key: commerciantName, Value: Map<userEmail -> totalSpentByThatUserOnThisCommerciant>
-    private Map<String, Map<String, Double>> userSpentOnCommerciant = new LinkedHashMap<>();
-    // For each merchantName, we keep a map of (userEmail -> integer # of transactions)
-    private Map<String, Map<String, Integer>> userTxCountOnCommerciant = new LinkedHashMap<>();
+    // View for the commerciant business report, updated on every transaction
+    // Key: commerciantName (sorted, the order of the report),
+    // Value: total received + what every user spent there and how many times
+    private final TreeMap<String, CommerciantStats> commerciantStats;
 
 
     private double globalSpendingLimit; // Global spending limit in account's currency
     private double globalDepositLimit;  // Global deposit limit in account's currency
 
-    public BusinessAccount(final String iban, final String currency, final String ownerEmail,
+    public BusinessAccount(final String iban, final Currency currency, final String ownerEmail,
                            final ExchangeRateManager exchangeRateManager) {
         super(iban, currency);
         this.ownerEmail = ownerEmail;
         this.associates = new LinkedHashMap<>();
-        this.commerciants = new HashMap<>();
         this.statsMap = new HashMap<>();
-        this.userSpentOnCommerciant = new LinkedHashMap<>();
-        this.userTxCountOnCommerciant = new LinkedHashMap<>();
+        this.commerciantStats = new TreeMap<>();
 
         this.globalSpendingLimit =
                 convertDefaultLimit(exchangeRateManager, DEFAULT_LIMIT, currency);
@@ -41,13 +43,14 @@ public class BusinessAccount extends Account {
     }
 
     private double convertDefaultLimit(final ExchangeRateManager exchangeRateManager,
-                                       final double defaultLimit, final String currency) {
-        if ("RON".equalsIgnoreCase(currency)) {
+                                       final double defaultLimit, final Currency currency) {
+        if (currency == exchangeRateManager.getBaseCurrency()) {
             return defaultLimit;
         }
 
-        double exchangeRate = exchangeRateManager.getExchangeRate("RON", currency);
-        if (exchangeRate == -1) {
+        double exchangeRate = exchangeRateManager.getExchangeRate(
+                exchangeRateManager.getBaseCurrency(), currency);
+        if (Double.isNaN(exchangeRate)) {
             throw new IllegalStateException("Exchange rate not available for " + currency);
         }
 
@@ -68,7 +71,6 @@ public class BusinessAccount extends Account {
             throw new IllegalArgumentException("The user is already an associate of the account.");
         }
         associates.put(email, role);
-        System.out.println("Associate pus in map cu rol " + role);
 
         if (associate != null) {
             associate.addAccount(this);
@@ -167,35 +169,25 @@ public class BusinessAccount extends Account {
      * In business report i need to know how much money was spent on each commerciant
      * in the commerciant report soo this is crucial
      * @param commerciantName - the name of the commerciant
+     * @param timestamp - when the money was spent
      * @param amount - the amount of money spent
      * @param userEmail - the email of the user that spent the money
      */
     @Override
-    public void addCommerciantTransaction(final String commerciantName, final double amount,
-                                          final String userEmail) {
-
-        // increment total for the entire business
-        commerciants.put(commerciantName,
-                commerciants.getOrDefault(commerciantName, 0.0) + amount
-        );
-
-        // also record user-specific spending:
-        userSpentOnCommerciant.putIfAbsent(commerciantName, new LinkedHashMap<>());
-        Map<String, Double> userMap = userSpentOnCommerciant.get(commerciantName);
-        userMap.put(userEmail, userMap.getOrDefault(userEmail, 0.0) + amount);
-
-        userTxCountOnCommerciant.putIfAbsent(commerciantName, new LinkedHashMap<>());
-        Map<String, Integer> txCountMap = userTxCountOnCommerciant.get(commerciantName);
-        txCountMap.put(userEmail, txCountMap.getOrDefault(userEmail, 0) + 1);
+    public void addCommerciantTransaction(final String commerciantName, final int timestamp,
+                                          final double amount, final String userEmail) {
+        // total for the entire business + user-specific spending
+        commerciantStats.computeIfAbsent(commerciantName, name -> new CommerciantStats())
+                .addTransaction(userEmail, timestamp, amount);
     }
 
     /***
-     * getter for the commerciants map
+     * getter for the commerciant view
      * used in the business report
-     * @return - the commerciants map
+     * @return - read-only map commerciant name -> stats, sorted by name
      */
-    public Map<String, Double> getCommerciants() {
-        return commerciants;
+    public SortedMap<String, CommerciantStats> getCommerciantStats() {
+        return Collections.unmodifiableSortedMap(commerciantStats);
     }
 
     /***
@@ -203,31 +195,33 @@ public class BusinessAccount extends Account {
      * this is used in the business report
      * because i have to know how much money was spent by each user
      * @param userEmail - the email of the user
+     * @param timestamp - when the money was spent
      * @param amount - the amount of money spent
      */
     @Override
-    public void addSpent(final String userEmail, final double amount) {
+    public void addSpent(final String userEmail, final int timestamp, final double amount) {
         if (amount <= 0 || userEmail == null) {
             return;
         }
         statsMap.putIfAbsent(userEmail, new Stats());
         Stats stats = statsMap.get(userEmail);
-        stats.addSpent(amount);
+        stats.addSpent(timestamp, amount);
     }
 
     /***
      * pretty much same as add spent but for deposits
      * @param userEmail - the email of the user
+     * @param timestamp - when the money was deposited
      * @param amount - the amount of money deposited
      */
     @Override
-    public void addDeposit(final String userEmail, final double amount) {
+    public void addDeposit(final String userEmail, final int timestamp, final double amount) {
         if (amount <= 0 || userEmail == null) {
             return;
         }
         statsMap.putIfAbsent(userEmail, new Stats());
         Stats stats = statsMap.get(userEmail);
-        stats.addDeposited(amount);
+        stats.addDeposited(timestamp, amount);
     }
 
     /***
@@ -265,24 +259,5 @@ public class BusinessAccount extends Account {
         return role.equalsIgnoreCase("employee");
     }
 
-    /***
-     * Used in the business report
-     * getter for the user spent on commerciant map
-     * @return - the map of the user spent on commerciant
-     */
-    public Map<String, Map<String, Double>> getUserSpentOnCommerciant() {
-        return userSpentOnCommerciant;
-    }
-
-    /***
-     * Used in the business report
-     * getter for the user transaction count on commerciant map
-     * made this because if i have 2 transactions at same commerciant
-     * i have to showcase twice in business report
-     * @return
-     */
-    public Map<String, Map<String, Integer>> getUserTxCountOnCommerciant() {
-        return userTxCountOnCommerciant;
-    }
 
 }
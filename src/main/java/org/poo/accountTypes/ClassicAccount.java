@@ -1,10 +1,11 @@
 package org.poo.accountTypes;
 
+import org.poo.currencyExchange.Currency;
 import org.poo.data.Account;
 
 public class ClassicAccount extends Account {
 
-    public ClassicAccount(final String iban, final String currency) {
+    public ClassicAccount(final String iban, final Currency currency) {
         super(iban, currency);
     }
 
@@ -1,11 +1,12 @@
 package org.poo.accountTypes;
 
+import org.poo.currencyExchange.Currency;
 import org.poo.data.Account;
 
 public class SavingsAccount extends Account {
     private double interestRate;
 
-    public SavingsAccount(final String iban, final String currency, final double interestRate) {
+    public SavingsAccount(final String iban, final Currency currency, final double interestRate) {
         super(iban, currency);
         this.interestRate = interestRate;
     }
@@ -33,7 +34,7 @@ public class SavingsAccount extends Account {
      * @return - returning the value computed
      */
     public double calculateInterest() {
-        return balance * (interestRate / 100);
+        return getBalance() * (interestRate / 100);
     }
 
     /***
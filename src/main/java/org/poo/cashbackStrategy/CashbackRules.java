@@ -0,0 +1,31 @@
+package org.poo.cashbackStrategy;
+
+/***
+ * The cashback evaluators of a bank run, one shared instance per rule type
+ * (they keep no state, so the payments don't create any)
+ */
+public final class CashbackRules {
+    private final CashbackStrategy nrOfTransactions;
+    private final CashbackStrategy spendingThreshold;
+
+    public CashbackRules(final CategoryRuleTable categoryRules) {
+        this.nrOfTransactions = new NrOfTransactionsStrategy(categoryRules);
+        this.spendingThreshold = new SpendingThresholdStrategy();
+    }
+
+    /***
+     * getter for the "nrOfTransactions" evaluator
+     * @return
+     */
+    public CashbackStrategy getNrOfTransactions() {
+        return nrOfTransactions;
+    }
+
+    /***
+     * getter for the "spendingThreshold" evaluator
+     * @return
+     */
+    public CashbackStrategy getSpendingThreshold() {
+        return spendingThreshold;
+    }
+}
@@ -1,18 +1,25 @@
 package org.poo.cashbackStrategy;
 
+import org.poo.data.Account;
+import org.poo.data.User;
+
 /***
  * This is the interface for the cashback strategy
  * basically implements a method to know how much cashback
+ * The strategies keep no state, the account and the user of the payment are given
+ * to them, so one of each is shared by all the payments
  */
 public interface CashbackStrategy {
     /***
      * THE STRATEGY FOR THE CASHBACK
+     * @param account - the account that pays
+     * @param user - the user that pays
      * @param amount
      * @param category
      * @param transactionCount
      * @param totalSpending
      * @return
      */
-    double calculateCashback(double amount, String category,
+    double calculateCashback(Account account, User user, double amount, String category,
                              int transactionCount, double totalSpending);
 }
@@ -0,0 +1,108 @@
+package org.poo.cashbackStrategy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/***
+ * The per-category cashback rules, compiled from the configuration
+ * (cashback-rules.json, next to the classes) into a table:
+ *  - every category gets an index, once
+ *  - the threshold and the rate of a category are at that index in two arrays
+ * A new category is just a new line in the configuration, no code change
+ * The table never changes after it is built, so every run shares the same one
+ */
+public final class CategoryRuleTable {
+    private static final String RULES_RESOURCE = "/cashback-rules.json";
+
+    private final Map<String, Integer> categoryIndex;
+    // the number of transactions from which the cashback is given, by category index
+    private final int[] thresholds;
+    // the cashback rate, by category index
+    private final double[] rates;
+
+    private CategoryRuleTable(final Map<String, Integer> categoryIndex,
+                              final int[] thresholds, final double[] rates) {
+        this.categoryIndex = categoryIndex;
+        this.thresholds = thresholds;
+        this.rates = rates;
+    }
+
+    // loaded the first time it is needed, then shared
+    private static final class DefaultRules {
+        private static final CategoryRuleTable INSTANCE = load(RULES_RESOURCE);
+    }
+
+    /***
+     * The rules from the configuration of the bank, compiled once
+     * @return - the shared table
+     */
+    public static CategoryRuleTable defaults() {
+        return DefaultRules.INSTANCE;
+    }
+
+    /***
+     * Reads the "nrOfTransactions" rules of a configuration from the classpath
+     * @param resource - the path of the configuration
+     * @return - the compiled table
+     */
+    public static CategoryRuleTable load(final String resource) {
+        try (InputStream in = CategoryRuleTable.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Cashback rules not found: " + resource);
+            }
+            return compile(new ObjectMapper().readTree(in).path("nrOfTransactions"));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cashback rules could not be read: " + resource, e);
+        }
+    }
+
+    private static CategoryRuleTable compile(final JsonNode rules) {
+        Map<String, Integer> categoryIndex = new HashMap<>();
+        int[] thresholds = new int[rules.size()];
+        double[] rates = new double[rules.size()];
+        for (JsonNode rule : rules) {
+            String category = rule.path("category").asText();
+            if (categoryIndex.containsKey(category)) {
+                throw new IllegalStateException("Two cashback rules for " + category);
+            }
+            int index = categoryIndex.size();
+            categoryIndex.put(category, index);
+            thresholds[index] = rule.path("threshold").asInt();
+            rates[index] = rule.path("rate").asDouble();
+        }
+        return new CategoryRuleTable(Map.copyOf(categoryIndex), thresholds, rates);
+    }
+
+    /***
+     * Finds the index of a category
+     * @param category - the category of the commerciant
+     * @return - the index or -1 if there is no rule for it
+     */
+    public int indexOf(final String category) {
+        Integer index = categoryIndex.get(category);
+        return index != null ? index : -1;
+    }
+
+    /***
+     * getter for the number of transactions from which the category gives cashback
+     * @param index - the index of the category
+     * @return
+     */
+    public int getThreshold(final int index) {
+        return thresholds[index];
+    }
+
+    /***
+     * getter for the cashback rate of the category
+     * @param index - the index of the category
+     * @return
+     */
+    public double getRate(final int index) {
+        return rates[index];
+    }
+}
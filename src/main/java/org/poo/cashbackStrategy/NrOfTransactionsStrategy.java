@@ -1,32 +1,26 @@
 package org.poo.cashbackStrategy;
 
 import org.poo.data.Account;
+import org.poo.data.User;
 
 public class NrOfTransactionsStrategy implements CashbackStrategy {
 
-    // Named constants instead of "magic numbers"
-    private static final int FOOD_THRESHOLD = 2;
-    private static final double FOOD_CASHBACK_RATE = 0.01;
+    // category -> threshold / rate, from the configuration
+    private final CategoryRuleTable rules;
 
-    private static final int CLOTHES_THRESHOLD = 5;
-    private static final double CLOTHES_CASHBACK_RATE = 0.05;
-
-    private static final int TECH_THRESHOLD = 10;
-    private static final double TECH_CASHBACK_RATE = 0.10;
-
-    private final Account account;
-
-    public NrOfTransactionsStrategy(final Account account) {
-        this.account = account;
+    public NrOfTransactionsStrategy(final CategoryRuleTable rules) {
+        this.rules = rules;
     }
 
     /***
      * This is the method that calculates the cashback
      * for the number of transactions strategy
      * basically, if the number of transactions is greater than
-     * or equal to a certain number, and the account has not used
+     * or equal to the threshold of the category, and the account has not used
      * the cashback for that category, it will return the cashback
-     * for that category
+     * for that category (categories without a rule get nothing)
+     * @param account - the account that pays
+     * @param user - the user that pays
      * @param amount - the amount of the transaction
      * @param category - the category of the transaction
      * @param transactionCount - the number of transactions
@@ -34,30 +28,21 @@ public class NrOfTransactionsStrategy implements CashbackStrategy {
      * @return - the cashback amount
      */
     @Override
-    public double calculateCashback(final double amount,
+    public double calculateCashback(final Account account,
+                                    final User user,
+                                    final double amount,
                                     final String category,
                                     final int transactionCount,
                                     final double totalSpending) {
-
-        if (category.equals("Food")
-                && transactionCount >= FOOD_THRESHOLD
-                && !account.hasUsedNrOfTransactionsCashback("Food")) {
-            account.markNrOfTransactionsCashbackAsUsed("Food");
-            return amount * FOOD_CASHBACK_RATE;
-        }
-
-        if (category.equals("Clothes")
-                && transactionCount >= CLOTHES_THRESHOLD
-                && !account.hasUsedNrOfTransactionsCashback("Clothes")) {
-            account.markNrOfTransactionsCashbackAsUsed("Clothes");
-            return amount * CLOTHES_CASHBACK_RATE;
+        int index = rules.indexOf(category);
+        if (index < 0) {
+            return 0.0;
         }
 
-        if (category.equals("Tech")
-                && transactionCount >= TECH_THRESHOLD
-                && !account.hasUsedNrOfTransactionsCashback("Tech")) {
-            account.markNrOfTransactionsCashbackAsUsed("Tech");
-            return amount * TECH_CASHBACK_RATE;
+        if (transactionCount >= rules.getThreshold(index)
+                && !account.hasUsedNrOfTransactionsCashback(index)) {
+            account.markNrOfTransactionsCashbackAsUsed(index);
+            return amount * rules.getRate(index);
         }
 
         return 0.0;
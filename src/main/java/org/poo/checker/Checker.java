@@ -17,7 +17,10 @@ import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.regex.Pattern;
 
 public final class Checker {
@@ -64,6 +67,10 @@ public final class Checker {
     public static void calculateScore() throws IOException {
         System.out.println();
         calculateScoreAllTests();
+        calculateFinalScore();
+    }
+
+    private static void calculateFinalScore() {
         int checkstyleScore = calculateScoreCheckstyle();
         calculateScoreGit();
         calculateScoreReadme();
@@ -85,6 +92,28 @@ public final class Checker {
         return Checkstyle.testCheckstyle();
     }
 
+    /**
+     * Same as calculateScore(), but the tests were already checked
+     * while they were running (see BatchRunner), so only the results are collected
+     * @param checkedRuns test name -> result of its check, in the order of the tests
+     */
+    public static void calculateScore(final Map<String, CompletableFuture<Boolean>> checkedRuns) {
+        System.out.println();
+        for (Map.Entry<String, CompletableFuture<Boolean>> checkedRun : checkedRuns.entrySet()) {
+            boolean passed;
+            try {
+                passed = checkedRun.getValue().join();
+            } catch (CompletionException e) {
+                e.getCause().printStackTrace();
+                passed = false;
+            }
+            totalScore += reportScore(checkedRun.getKey(), passed);
+        }
+        System.out.println("-----------------------------------------------------");
+        System.out.println("Tests score: " + totalScore + "/80");
+        calculateFinalScore();
+    }
+
     /**
      * This method is used to calculate score of implementation
      * 18 tests (80 points maximum)
@@ -112,7 +141,21 @@ public final class Checker {
      * @return the score of that test
      */
     public static int calculateScore(final String input) {
-        if (checkOutput(input)) {
+        return reportScore(input, checkOutput(input));
+    }
+
+    /**
+     * Checks the output of one test against its reference
+     * (safe to call from several threads, for different tests)
+     * @param input the test you want to check
+     * @return if the output matches the reference
+     */
+    public static boolean checkTest(final String input) {
+        return checkOutput(input);
+    }
+
+    private static int reportScore(final String input, final boolean passed) {
+        if (passed) {
             System.out.print(input + " ");
             for (int i = 1;  i <= CheckerConstants.LEN_LONGEST_TEST_NAME - input.length(); i++) {
                 System.out.print("-");
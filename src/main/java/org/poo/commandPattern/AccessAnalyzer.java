@@ -0,0 +1,120 @@
+package org.poo.commandPattern;
+
+import org.poo.context.BankContext;
+import org.poo.data.Account;
+import org.poo.data.User;
+import org.poo.fileio.CommandInput;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.CardEntry;
+import org.poo.registry.CardRegistry;
+import org.poo.registry.UserDirectory;
+
+/**
+ * Finds out what every command touches (see AccessPlan)
+ * It reads the account and card indexes, so it has to run while no command changes them:
+ * the engine calls it in input order and the commands that change the indexes are
+ * exclusive, so by the time a command is analysed every earlier one of those is done
+ */
+public final class AccessAnalyzer {
+    private final UserDirectory users;
+    private final AccountRegistry accountRegistry;
+    private final CardRegistry cardRegistry;
+
+    public AccessAnalyzer(final BankContext context) {
+        this.users = context.getUsers();
+        this.accountRegistry = context.getAccountRegistry();
+        this.cardRegistry = context.getCardRegistry();
+    }
+
+    /***
+     * What the command touches
+     * @param command - the command input
+     * @return - its plan
+     */
+    public AccessPlan analyze(final CommandInput command) {
+        CommandType commandType = command.getCommandType();
+        if (commandType == null) {
+            return AccessPlan.exclusive();
+        }
+
+        AccessPlan.Builder plan = AccessPlan.lanes();
+        switch (commandType) {
+            // change the indexes, the ID generators, the split payments
+            // or read every user: they run alone
+            case PRINT_USERS, ADD_ACCOUNT, CREATE_CARD, CREATE_ONE_TIME_CARD,
+                 DELETE_ACCOUNT, DELETE_CARD, SPLIT_PAYMENT, ACCEPT_SPLIT_PAYMENT,
+                 REJECT_SPLIT_PAYMENT, ADD_NEW_BUSINESS_ASSOCIATE -> {
+                return AccessPlan.exclusive();
+            }
+            case PAY_ONLINE -> {
+                CardEntry cardEntry = cardRegistry.find(command.getCardNumber());
+                if (cardEntry != null && cardEntry.getCard().getCardType().equals("OneTime")) {
+                    // a one time card is replaced by a new one (new number, index changed)
+                    return AccessPlan.exclusive();
+                }
+                user(plan, command.getEmail());
+                card(plan, cardEntry);
+                // (the payment counters per commerciant are kept by the account)
+            }
+            case CASH_WITHDRAWAL -> {
+                user(plan, command.getEmail());
+                card(plan, cardRegistry.find(command.getCardNumber()));
+            }
+            case CHECK_CARD_STATUS -> card(plan, cardRegistry.find(command.getCardNumber()));
+            case SEND_MONEY -> {
+                user(plan, command.getEmail());
+                account(plan, command.getAccount());
+                account(plan, command.getReceiver());
+            }
+            case PRINT_TRANSACTIONS -> allAccountsOf(plan, users.findByEmail(command.getEmail()));
+            case WITHDRAW_SAVINGS -> {
+                account(plan, command.getAccount());
+                allAccountsOf(plan, accountRegistry.findOwner(command.getAccount()));
+            }
+            case ADD_FUNDS, SET_ALIAS, UPGRADE_PLAN, CHANGE_SPENDING_LIMIT,
+                 CHANGE_DEPOSIT_LIMIT -> {
+                user(plan, command.getEmail());
+                account(plan, command.getAccount());
+            }
+            // only the account itself
+            case SET_MINIMUM_BALANCE, REPORT, SPENDINGS_REPORT, CHANGE_INTEREST_RATE,
+                 ADD_INTEREST, BUSINESS_REPORT -> account(plan, command.getAccount());
+            default -> {
+                return AccessPlan.exclusive();
+            }
+        }
+        return plan.build();
+    }
+
+    // the account and its owner (fees and plans are the owner's)
+    private void account(final AccessPlan.Builder plan, final String iban) {
+        plan.account(iban);
+        User owner = accountRegistry.findOwner(iban);
+        if (owner != null) {
+            plan.user(owner.getEmail());
+        }
+    }
+
+    private void card(final AccessPlan.Builder plan, final CardEntry cardEntry) {
+        if (cardEntry != null) {
+            account(plan, cardEntry.getAccount().getIban());
+        }
+    }
+
+    private void user(final AccessPlan.Builder plan, final String email) {
+        User user = users.findByEmail(email);
+        if (user != null) {
+            plan.user(user.getEmail());
+        }
+    }
+
+    private void allAccountsOf(final AccessPlan.Builder plan, final User user) {
+        if (user == null) {
+            return;
+        }
+        plan.user(user.getEmail());
+        for (Account account : user.getAccounts()) {
+            account(plan, account.getIban());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.poo.commandPattern;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * What a command touches, as seen by the LaneExecutionEngine:
+ *  - the keys of its lanes (accounts, users), the command runs after
+ *    every earlier command that shares one of them
+ *  - or exclusive: the command changes something every lane reads (the account / card
+ *    indexes, the ID generators, the split payments...), so it runs alone,
+ *    after everything before it and before everything after it
+ */
+public final class AccessPlan {
+    private static final AccessPlan EXCLUSIVE = new AccessPlan(Collections.emptySet(), true);
+
+    private final Set<String> keys;
+    private final boolean exclusive;
+
+    private AccessPlan(final Set<String> keys, final boolean exclusive) {
+        this.keys = keys;
+        this.exclusive = exclusive;
+    }
+
+    /***
+     * The plan of a command that has to run alone
+     * @return
+     */
+    public static AccessPlan exclusive() {
+        return EXCLUSIVE;
+    }
+
+    /***
+     * Starts the plan of a command that runs in the lanes of its keys
+     * @return
+     */
+    public static Builder lanes() {
+        return new Builder();
+    }
+
+    /***
+     * getter for the lane keys (empty for an exclusive plan)
+     * @return
+     */
+    public Set<String> getKeys() {
+        return keys;
+    }
+
+    /***
+     * true if the command has to run alone
+     * @return
+     */
+    public boolean isExclusive() {
+        return exclusive;
+    }
+
+    /**
+     * Collects the lane keys of a command, nulls are skipped
+     */
+    public static final class Builder {
+        private final Set<String> keys = new LinkedHashSet<>();
+
+        private Builder() {
+        }
+
+        /***
+         * the command touches the account with this IBAN
+         * @param iban
+         * @return
+         */
+        public Builder account(final String iban) {
+            if (iban != null) {
+                keys.add("account:" + iban);
+            }
+            return this;
+        }
+
+        /***
+         * the command touches the user with this (normalized) email
+         * @param email
+         * @return
+         */
+        public Builder user(final String email) {
+            if (email != null) {
+                keys.add("user:" + email);
+            }
+            return this;
+        }
+
+        /***
+         * the finished plan
+         * @return
+         */
+        public AccessPlan build() {
+            return new AccessPlan(Collections.unmodifiableSet(keys), false);
+        }
+    }
+}
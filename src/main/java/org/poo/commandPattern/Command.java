@@ -1,8 +1,8 @@
 package org.poo.commandPattern;
 
-import org.poo.data.User;
 import org.poo.data.Commerciant;
 import org.poo.fileio.CommandInput;
+import org.poo.registry.UserDirectory;
 
 import java.util.List;
 
@@ -10,14 +10,14 @@ import java.util.List;
  * Interface for the commands
  * Every command uses the users and the command input
  * The command input is the input from the file
- * The users are the list of users
+ * The users are the user directory (users indexed by email)
  * Every command uses this interface
  */
 public interface Command {
     /***
      * I only need these 2 parameters that are used in every command class
-     * @param users - list of users
+     * @param users - the user directory
      * @param command - the command to be executed
      */
-    void execute(List<User> users, List<Commerciant> commerciants, CommandInput command);
+    void execute(UserDirectory users, List<Commerciant> commerciants, CommandInput command);
 }
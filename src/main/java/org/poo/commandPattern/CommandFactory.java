@@ -1,66 +1,117 @@
 package org.poo.commandPattern;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.poo.cashbackStrategy.CashbackRules;
 import org.poo.commands.*;
+import org.poo.context.BankContext;
 import org.poo.currencyExchange.ExchangeRateManager;
+import org.poo.fileio.OutputSink;
+import org.poo.registry.AccountLocks;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.CardRegistry;
+import org.poo.registry.MerchantDirectory;
+import org.poo.splitManager.SplitPaymentManager;
+import org.poo.utils.IdGenerator;
 
 public class CommandFactory {
     private final ExchangeRateManager exchangeRateManager;
+    private final AccountRegistry accountRegistry;
+    private final CardRegistry cardRegistry;
+    private final AccountLocks accountLocks;
+    private final MerchantDirectory merchants;
+    private final SplitPaymentManager splitPaymentManager;
+    private final IdGenerator idGenerator;
+    private final CashbackRules cashbackRules;
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
 
-    public CommandFactory(final ExchangeRateManager exchangeRateManager,
-                          final ObjectMapper objectMapper, final ArrayNode output) {
-        this.exchangeRateManager = exchangeRateManager;
-        this.objectMapper = objectMapper;
-        this.output = output;
+    /***
+     * The commands are built with the services of one bank run
+     * @param context - the run the commands belong to
+     */
+    public CommandFactory(final BankContext context) {
+        this.exchangeRateManager = context.getExchangeRateManager();
+        this.accountRegistry = context.getAccountRegistry();
+        this.cardRegistry = context.getCardRegistry();
+        this.accountLocks = context.getAccountLocks();
+        this.merchants = context.getMerchants();
+        this.splitPaymentManager = context.getSplitPaymentManager();
+        this.idGenerator = context.getIdGenerator();
+        this.cashbackRules = context.getCashbackRules();
+        this.objectMapper = context.getObjectMapper();
+        this.output = context.getOutput();
+    }
+
+    /***
+     * Builds the dispatch table: one reusable command for every command type,
+     * indexed by the ordinal of the type
+     * Called once per run, so executing a command doesn't allocate anything
+     * @return - the table of commands
+     */
+    public Command[] createDispatchTable() {
+        CommandType[] types = CommandType.values();
+        Command[] table = new Command[types.length];
+        for (CommandType type : types) {
+            table[type.ordinal()] = createCommand(type);
+        }
+        return table;
     }
 
     /***
      * Creates a command based on the command given
      * Each command possible has a different class
-     * If the command is not recognized, an exception is thrown
-     * it is never use tho, but its just for the plot xD
+     * The commands only keep the services they were built with (no state
+     * from one execution to the other), so one of each is enough for a whole run
      * @param commandType - the type of the command
      * @return each command
      */
-    public Command createCommand(final String commandType) {
+    private Command createCommand(final CommandType commandType) {
         return switch (commandType) {
-            case "printUsers" -> new PrintUsers(objectMapper, output);
-            case "addAccount" -> new AddAccountCommand(exchangeRateManager);
-            case "createCard" -> new CreateCardCommand();
-            case "addFunds" -> new AddFundsCommand();
-            case "deleteAccount" -> new DeleteAccountCommand(objectMapper, output);
-            case "createOneTimeCard" -> new CreateOneTimeCommand();
-            case "deleteCard" -> new DeleteCardCommand();
-            case "payOnline" -> new PayOnlineCommand(objectMapper, output, exchangeRateManager);
-            case "sendMoney" -> new SendMoneyCommand(exchangeRateManager, objectMapper, output);
-            case "setAlias" -> new SetAliasCommand();
-            case "printTransactions" -> new PrintTransactions(objectMapper, output);
-            case "setMinimumBalance" -> new SetMinimumBalance(objectMapper, output);
-            case "checkCardStatus" -> new CheckCardStatus(objectMapper, output);
-            case "splitPayment" -> new SplitPaymentCommand(objectMapper,
-                    output, exchangeRateManager);
-            case "report" -> new Report(objectMapper, output);
-            case "spendingsReport" -> new SpendingReport(objectMapper, output);
-            case "changeInterestRate" -> new ChangeInterestCommand(objectMapper, output);
-            case "addInterest" -> new AddInterestCommand(objectMapper, output);
-            case "withdrawSavings" -> new WithdrawSavingsCommand(objectMapper, output,
-                    exchangeRateManager);
-            case "upgradePlan" -> new UpgradePlanCommand(exchangeRateManager, objectMapper, output);
-            case "cashWithdrawal" -> new CashWithdrawalCommand(exchangeRateManager,
+            case PRINT_USERS -> new PrintUsers(objectMapper, output);
+            case ADD_ACCOUNT -> new AddAccountCommand(exchangeRateManager, accountRegistry,
+                    idGenerator);
+            case CREATE_CARD -> new CreateCardCommand(accountRegistry, cardRegistry, idGenerator);
+            case ADD_FUNDS -> new AddFundsCommand(accountRegistry, accountLocks);
+            case DELETE_ACCOUNT -> new DeleteAccountCommand(accountRegistry,
+                    cardRegistry, objectMapper, output);
+            case CREATE_ONE_TIME_CARD -> new CreateOneTimeCommand(accountRegistry,
+                    cardRegistry, idGenerator);
+            case DELETE_CARD -> new DeleteCardCommand(accountRegistry, cardRegistry);
+            case PAY_ONLINE -> new PayOnlineCommand(objectMapper, output, exchangeRateManager,
+                    accountRegistry, cardRegistry, merchants, idGenerator, accountLocks,
+                    cashbackRules);
+            case SEND_MONEY -> new SendMoneyCommand(exchangeRateManager, accountRegistry,
+                    objectMapper, output, accountLocks, cashbackRules);
+            case SET_ALIAS -> new SetAliasCommand(accountRegistry);
+            case PRINT_TRANSACTIONS -> new PrintTransactions(objectMapper, output);
+            case SET_MINIMUM_BALANCE -> new SetMinimumBalance(accountRegistry,
+                    objectMapper, output);
+            case CHECK_CARD_STATUS -> new CheckCardStatus(cardRegistry, objectMapper, output);
+            case SPLIT_PAYMENT -> new SplitPaymentCommand(objectMapper,
+                    output, exchangeRateManager, accountRegistry, splitPaymentManager);
+            case REPORT -> new Report(accountRegistry, objectMapper, output);
+            case SPENDINGS_REPORT -> new SpendingReport(accountRegistry, objectMapper, output);
+            case CHANGE_INTEREST_RATE -> new ChangeInterestCommand(accountRegistry,
+                    objectMapper, output);
+            case ADD_INTEREST -> new AddInterestCommand(accountRegistry, objectMapper, output,
+                    accountLocks);
+            case WITHDRAW_SAVINGS -> new WithdrawSavingsCommand(objectMapper, output,
+                    exchangeRateManager, accountRegistry, accountLocks);
+            case UPGRADE_PLAN -> new UpgradePlanCommand(exchangeRateManager, accountRegistry,
+                    objectMapper, output, accountLocks);
+            case CASH_WITHDRAWAL -> new CashWithdrawalCommand(exchangeRateManager,
+                    accountRegistry, cardRegistry, objectMapper, output, accountLocks);
+            case ACCEPT_SPLIT_PAYMENT -> new AcceptSplitPaymentCommand(objectMapper, output,
+                    splitPaymentManager);
+            case REJECT_SPLIT_PAYMENT -> new RejectSplitPaymentCommand(objectMapper, output,
+                    splitPaymentManager);
+            case ADD_NEW_BUSINESS_ASSOCIATE -> new AddNewBusinessAssociateCommand(accountRegistry);
+            case CHANGE_SPENDING_LIMIT -> new ChangeSpendingLimitCommand(accountRegistry,
+                    objectMapper, output);
+            case BUSINESS_REPORT -> new BusinessReportCommand(accountRegistry,
+                    objectMapper, output);
+            case CHANGE_DEPOSIT_LIMIT -> new ChangeDepositLimitCommand(accountRegistry,
                     objectMapper, output);
-            case "acceptSplitPayment" -> new AcceptSplitPaymentCommand(objectMapper, output);
-            case "rejectSplitPayment" -> new RejectSplitPaymentCommand(objectMapper, output);
-            case "addNewBusinessAssociate" -> new AddNewBusinessAssociateCommand();
-            case "changeSpendingLimit" -> new ChangeSpendingLimitCommand(objectMapper, output);
-            case "businessReport" -> new BusinessReportCommand(objectMapper, output);
-            case "changeDepositLimit" -> new ChangeDepositLimitCommand(objectMapper, output);
-            default -> {
-                System.out.println("Unknown command type: " + commandType);
-                yield null; // Return null for unrecognized commands
-            }
         };
     }
 }
@@ -3,29 +3,32 @@ package org.poo.commandPattern;
 import java.util.List;
 
 import org.poo.data.Commerciant;
-import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.registry.UserDirectory;
 
 public class CommandInvoker {
-    private final CommandFactory commandFactory;
+    // one command for every command type, indexed by the ordinal of the type
+    private final Command[] dispatchTable;
 
     public CommandInvoker(final CommandFactory commandFactory) {
-        this.commandFactory = commandFactory;
+        this.dispatchTable = commandFactory.createDispatchTable();
     }
 
     /***
      * Executes the command, nothing complicated
-     * @param commandType the type of the command
-     * @param users - the list of users
+     * The type of the command was already resolved when the input was read,
+     * so finding the command is just an array index
+     * @param users - the user directory
      * @param command - the command input
      */
-    public void executeCommand(final String commandType, final List<User> users,
+    public void executeCommand(final UserDirectory users,
                                final List<Commerciant> commerciants,
                                final CommandInput command) {
-        Command cmd = commandFactory.createCommand(commandType);
-        if (cmd == null) {
+        CommandType commandType = command.getCommandType();
+        if (commandType == null) {
+            System.out.println("Unknown command type: " + command.getCommand());
             return;
         }
-        cmd.execute(users, commerciants, command);
+        dispatchTable[commandType.ordinal()].execute(users, commerciants, command);
     }
 }
@@ -0,0 +1,73 @@
+package org.poo.commandPattern;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/***
+ * All the command types that can appear in the input
+ * The type is resolved once, when the command is read (CommandInput.setCommand),
+ * and its ordinal is the index of the handler in the dispatch table
+ */
+public enum CommandType {
+    PRINT_USERS("printUsers"),
+    ADD_ACCOUNT("addAccount"),
+    CREATE_CARD("createCard"),
+    ADD_FUNDS("addFunds"),
+    DELETE_ACCOUNT("deleteAccount"),
+    CREATE_ONE_TIME_CARD("createOneTimeCard"),
+    DELETE_CARD("deleteCard"),
+    PAY_ONLINE("payOnline"),
+    SEND_MONEY("sendMoney"),
+    SET_ALIAS("setAlias"),
+    PRINT_TRANSACTIONS("printTransactions"),
+    SET_MINIMUM_BALANCE("setMinimumBalance"),
+    CHECK_CARD_STATUS("checkCardStatus"),
+    SPLIT_PAYMENT("splitPayment"),
+    REPORT("report"),
+    SPENDINGS_REPORT("spendingsReport"),
+    CHANGE_INTEREST_RATE("changeInterestRate"),
+    ADD_INTEREST("addInterest"),
+    WITHDRAW_SAVINGS("withdrawSavings"),
+    UPGRADE_PLAN("upgradePlan"),
+    CASH_WITHDRAWAL("cashWithdrawal"),
+    ACCEPT_SPLIT_PAYMENT("acceptSplitPayment"),
+    REJECT_SPLIT_PAYMENT("rejectSplitPayment"),
+    ADD_NEW_BUSINESS_ASSOCIATE("addNewBusinessAssociate"),
+    CHANGE_SPENDING_LIMIT("changeSpendingLimit"),
+    BUSINESS_REPORT("businessReport"),
+    CHANGE_DEPOSIT_LIMIT("changeDepositLimit");
+
+    private static final Map<String, CommandType> BY_NAME = new HashMap<>();
+
+    static {
+        for (CommandType type : values()) {
+            BY_NAME.put(type.commandName, type);
+        }
+    }
+
+    private final String commandName;
+
+    CommandType(final String commandName) {
+        this.commandName = commandName;
+    }
+
+    /***
+     * getter for the name of the command, as it appears in the input
+     * @return - the command name
+     */
+    public String getCommandName() {
+        return commandName;
+    }
+
+    /***
+     * Finds the type of a command by its name
+     * @param commandName - the name from the input
+     * @return - the command type or null if the command is not recognized
+     */
+    public static CommandType fromName(final String commandName) {
+        if (commandName == null) {
+            return null;
+        }
+        return BY_NAME.get(commandName);
+    }
+}
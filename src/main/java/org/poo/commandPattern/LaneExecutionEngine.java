@@ -0,0 +1,141 @@
+package org.poo.commandPattern;
+
+import org.poo.data.Commerciant;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.SequencedOutputSink;
+import org.poo.registry.UserDirectory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the commands of one bank run in parallel, without changing the result:
+ *  - every command has a plan (AccessAnalyzer): the lanes it touches
+ *    (accounts, users) or exclusive
+ *  - a command starts after the last earlier command of each of its lanes,
+ *    so commands on different accounts run at the same time, and a command on
+ *    several accounts (sendMoney...) waits for all of them, in input order
+ *  - an exclusive command waits for everything before it and runs alone
+ *  - the results are written in input order (SequencedOutputSink)
+ * submit has to be called from one thread, in input order
+ */
+public final class LaneExecutionEngine implements AutoCloseable {
+    // above this many lanes, the lanes that are done are forgotten
+    private static final int MAX_TRACKED_LANES = 4096;
+
+    private final CommandInvoker invoker;
+    private final AccessAnalyzer analyzer;
+    private final SequencedOutputSink output;
+    private final UserDirectory users;
+    private final List<Commerciant> commerciants;
+    private final ExecutorService workers;
+    // lane key -> the last command submitted in that lane
+    private final Map<String, CompletableFuture<Void>> lastInLane;
+    private long nextSequence;
+    // the failure of the earliest command that failed (guarded by this)
+    private RuntimeException failure;
+    private long failureSequence;
+
+    public LaneExecutionEngine(final CommandInvoker invoker, final AccessAnalyzer analyzer,
+                               final SequencedOutputSink output, final UserDirectory users,
+                               final List<Commerciant> commerciants, final int threads) {
+        this.invoker = invoker;
+        this.analyzer = analyzer;
+        this.output = output;
+        this.users = users;
+        this.commerciants = commerciants;
+        this.workers = Executors.newFixedThreadPool(threads);
+        this.lastInLane = new HashMap<>();
+        this.nextSequence = 0;
+    }
+
+    /***
+     * Schedules the next command of the input
+     * @param command - the command input
+     */
+    public void submit(final CommandInput command) {
+        AccessPlan plan = analyzer.analyze(command);
+        long sequence = nextSequence++;
+
+        if (plan.isExclusive()) {
+            awaitIdle();
+            execute(sequence, command);
+            rethrowFailure();
+            return;
+        }
+
+        List<CompletableFuture<Void>> previous = new ArrayList<>();
+        for (String key : plan.getKeys()) {
+            CompletableFuture<Void> last = lastInLane.get(key);
+            if (last != null && !last.isDone()) {
+                previous.add(last);
+            }
+        }
+
+        Runnable task = () -> execute(sequence, command);
+        CompletableFuture<Void> scheduled = previous.isEmpty()
+                ? CompletableFuture.runAsync(task, workers)
+                : CompletableFuture.allOf(previous.toArray(new CompletableFuture<?>[0]))
+                        .thenRunAsync(task, workers);
+
+        if (lastInLane.size() > MAX_TRACKED_LANES) {
+            lastInLane.values().removeIf(CompletableFuture::isDone);
+        }
+        for (String key : plan.getKeys()) {
+            lastInLane.put(key, scheduled);
+        }
+    }
+
+    /***
+     * Waits for every command submitted so far
+     * (needed before anything outside the commands changes, like the exchange rates)
+     * Throws the failure of the earliest command that failed, if any
+     */
+    public void awaitIdle() {
+        CompletableFuture.allOf(lastInLane.values().toArray(new CompletableFuture<?>[0])).join();
+        lastInLane.clear();
+        rethrowFailure();
+    }
+
+    /***
+     * Waits for every command and stops the workers
+     */
+    @Override
+    public void close() {
+        try {
+            awaitIdle();
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    // never throws, so the commands waiting for this one always run
+    private void execute(final long sequence, final CommandInput command) {
+        output.begin(sequence);
+        try {
+            invoker.executeCommand(users, commerciants, command);
+        } catch (RuntimeException e) {
+            recordFailure(sequence, e);
+        } finally {
+            output.complete(sequence);
+        }
+    }
+
+    private synchronized void recordFailure(final long sequence, final RuntimeException e) {
+        if (failure == null || sequence < failureSequence) {
+            failure = e;
+            failureSequence = sequence;
+        }
+    }
+
+    private synchronized void rethrowFailure() {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -1,15 +1,16 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.commandPattern.Command;
 import org.poo.data.Account;
 import org.poo.data.Commerciant;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
 import org.poo.splitManager.SplitPaymentManager;
 import org.poo.splitManager.SplitPaymentState;
+import org.poo.registry.UserDirectory;
 
 import java.util.List;
 
@@ -23,11 +24,14 @@ import java.util.List;
  */
 public class AcceptSplitPaymentCommand implements Command {
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
+    private final SplitPaymentManager splitPaymentManager;
 
-    public AcceptSplitPaymentCommand(final ObjectMapper objectMapper, final ArrayNode output) {
+    public AcceptSplitPaymentCommand(final ObjectMapper objectMapper, final OutputSink output,
+                                               final SplitPaymentManager splitPaymentManager) {
         this.objectMapper = objectMapper;
         this.output = output;
+        this.splitPaymentManager = splitPaymentManager;
     }
 
     /***
@@ -35,15 +39,15 @@ public class AcceptSplitPaymentCommand implements Command {
      * this is handling a lot of things
      * like making sure that all the users accepted and if yes
      * grabbing the pending transaction and finalizing it
-     * @param users - list of users
+     * @param users - the user directory
      * @param commerciants
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
         // 1) Find the user
-        User user = findUserByEmail(users, command.getEmail());
+        User user = users.findByEmail(command.getEmail());
         if (user == null) {
             generateOutput("User not found", command.getTimestamp());
             return;
@@ -54,7 +58,7 @@ public class AcceptSplitPaymentCommand implements Command {
             splitType = "equal"; // default if not specified
         }
 
-        SplitPaymentManager manager = SplitPaymentManager.getInstance();
+        SplitPaymentManager manager = splitPaymentManager;
 
         SplitPaymentState state = null;
         Account userAccount = null;
@@ -92,15 +96,6 @@ public class AcceptSplitPaymentCommand implements Command {
         }
     }
 
-    private User findUserByEmail(final List<User> users, final String email) {
-        for (User u : users) {
-            if (u.getEmail().equals(email)) {
-                return u;
-            }
-        }
-        return null;
-    }
-
     private void generateOutput(final String message, final int timestamp) {
         ObjectNode node = objectMapper.createObjectNode();
         node.put("timestamp", timestamp);
@@ -8,23 +8,32 @@ import org.poo.factories.AccountFactory;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
 import org.poo.operationTypes.AccountCreationOperation;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.UserDirectory;
+import org.poo.utils.IdGenerator;
 
 import java.util.List;
 
-import static org.poo.utils.Utils.generateIBAN;
-
 public class AddAccountCommand implements Command {
 
     private final ExchangeRateManager exchangeRateManager;
+    private final AccountRegistry accountRegistry;
+    private final IdGenerator idGenerator;
 
     /**
      * Constructor for AddAccountCommand.
-     * It initializes the exchange rate manager.
+     * It initializes the exchange rate manager, the account registry and the IBAN generator.
      *
      * @param exchangeRateManager The exchange rate manager used for currency conversion.
+     * @param accountRegistry The registry where the new account is indexed.
+     * @param idGenerator The generator of the IBANs of this run.
      */
-    public AddAccountCommand(final ExchangeRateManager exchangeRateManager) {
+    public AddAccountCommand(final ExchangeRateManager exchangeRateManager,
+                             final AccountRegistry accountRegistry,
+                             final IdGenerator idGenerator) {
         this.exchangeRateManager = exchangeRateManager;
+        this.accountRegistry = accountRegistry;
+        this.idGenerator = idGenerator;
     }
 
     /**
@@ -33,41 +42,41 @@ public class AddAccountCommand implements Command {
      * - Searches for the user with the given email.
      * - Generates an IBAN for the new account.
      * - Creates the account using the AccountFactory.
-     * - Adds the account to the user.
+     * - Adds the account to the user and indexes it in the account registry.
      * - Creates an account creation operation and attaches it to the account.
      *
-     * @param users   - List of users in the system.
+     * @param users   - the user directory
      * @param command - The command input containing account details.
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
 
-        for (User user : users) { // Search for the user
-            if (user.getEmail().equals(command.getEmail())) {
-                String iban = generateIBAN(); // Generate IBAN with the utility method
+        User user = users.findByEmail(command.getEmail()); // Search for the user
+        if (user == null) {
+            return;
+        }
 
-                // Create the account using the factory
-                Account account = AccountFactory.createAccount(
-                        command.getAccountType(),
-                        iban,
-                        command.getCurrency(),
-                        user.getEmail(), // Pass user email as ownerEmail for BusinessAccount
-                        command.getInterestRate(), // Interest rate is used for SavingsAccount
-                        exchangeRateManager // Pass ExchangeRateManager
-                );
+        String iban = idGenerator.generateIBAN(); // Generate IBAN for this run
 
-                user.addAccount(account); // Add the created account to the user
+        // Create the account using the factory
+        Account account = AccountFactory.createAccount(
+                command.getAccountType(),
+                iban,
+                command.getCurrency(),
+                user.getEmail(), // Pass user email as ownerEmail for BusinessAccount
+                command.getInterestRate(), // Interest rate is used for SavingsAccount
+                exchangeRateManager // Pass ExchangeRateManager
+        );
 
-                // Creating the account has to be added as an operation
-                AccountCreationOperation creationOperation = new AccountCreationOperation(
-                        command.getTimestamp(),
-                        "New account created"
-                );
-                account.addOperation(creationOperation);
+        user.addAccount(account); // Add the created account to the user
+        accountRegistry.register(account, user);
 
-                break; // Exit the loop once the account is added
-            }
-        }
+        // Creating the account has to be added as an operation
+        AccountCreationOperation creationOperation = new AccountCreationOperation(
+                command.getTimestamp(),
+                "New account created"
+        );
+        account.addOperation(creationOperation);
     }
 }
@@ -7,10 +7,21 @@ import org.poo.data.Commerciant;
 import org.poo.operationTypes.FailOperation;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.registry.AccountLocks;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.UserDirectory;
 
 import java.util.List;
 
 public class AddFundsCommand implements Command {
+    private final AccountRegistry accountRegistry;
+    private final AccountLocks accountLocks;
+
+    public AddFundsCommand(final AccountRegistry accountRegistry,
+                           final AccountLocks accountLocks) {
+        this.accountRegistry = accountRegistry;
+        this.accountLocks = accountLocks;
+    }
 
     /**
      * This method handles the command for adding funds to an account.
@@ -20,16 +31,18 @@ public class AddFundsCommand implements Command {
      * 4) If limit not exceeded, we add funds and add a deposit operation.
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
-        // 1) Find the user by email
-        User depositUser = null;
-        for (User user : users) {
-            if (user.getEmail().equalsIgnoreCase(command.getEmail())) {
-                depositUser = user;
-                break;
-            }
+        try (AccountLocks.Held held = accountLocks.lockAll(command.getAccount())) {
+            executeLocked(users, commerciants, command);
         }
+    }
+
+    // the command itself, run while holding the locks of the accounts it changes
+    private void executeLocked(final UserDirectory users, final List<Commerciant> commerciants,
+                               final CommandInput command) {
+        // 1) Find the user by email
+        User depositUser = users.findByEmail(command.getEmail());
 
         // If no user with that email was found
         if (depositUser == null) {
@@ -37,13 +50,10 @@ public class AddFundsCommand implements Command {
             return;
         }
 
-        // 2) Find the account in depositUser's account list
+        // 2) Find the account, it has to be in depositUser's account list
         Account targetAccount = null;
-        for (Account acc : depositUser.getAccounts()) {
-            if (acc.getIban().equals(command.getAccount())) {
-                targetAccount = acc;
-                break;
-            }
+        if (accountRegistry.isHeldBy(command.getAccount(), depositUser)) {
+            targetAccount = accountRegistry.findAccount(command.getAccount());
         }
 
         // If the user doesn't own/associate with that account => no deposit
@@ -60,10 +70,6 @@ public class AddFundsCommand implements Command {
                 double depositAmount = command.getAmount();
                 double depositLimit = bAcc.getGlobalDepositLimit();
 
-                System.out.println("Checking isEmployee for userEmail=" + depositUser.getEmail());
-                System.out.println("Role is employee, deposit amount=" + depositAmount);
-                System.out.println("Deposit limit=" + depositLimit);
-
                 if (depositAmount > depositLimit) {
                     // Exceed deposit limit => fail
                     FailOperation depositLimitFail = new FailOperation(
@@ -78,6 +84,7 @@ public class AddFundsCommand implements Command {
 
         // 4) If limit not exceeded (or not business account), proceed
         targetAccount.addFunds(command.getAmount());
-        targetAccount.addDeposit(depositUser.getEmail(), command.getAmount());
+        targetAccount.addDeposit(depositUser.getEmail(), command.getTimestamp(),
+                command.getAmount());
     }
 }
@@ -1,24 +1,32 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.commandPattern.Command;
 import org.poo.data.Account;
 import org.poo.data.Commerciant;
-import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
 import org.poo.operationTypes.AddInterestOperation;
+import org.poo.registry.AccountLocks;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.UserDirectory;
 
 import java.util.List;
 
 public class AddInterestCommand implements Command {
+    private final AccountRegistry accountRegistry;
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
+    private final AccountLocks accountLocks;
 
-    public AddInterestCommand(final ObjectMapper objectMapper, final ArrayNode output) {
+    public AddInterestCommand(final AccountRegistry accountRegistry,
+                              final ObjectMapper objectMapper, final OutputSink output,
+                              final AccountLocks accountLocks) {
+        this.accountRegistry = accountRegistry;
         this.objectMapper = objectMapper;
         this.output = output;
+        this.accountLocks = accountLocks;
     }
 
     /***
@@ -28,26 +36,22 @@ public class AddInterestCommand implements Command {
      * this its what the ref makes me do
      * If the account is not a savings account, an error is added to the output
      * If the account is a savings account, the interest is calculated and added to the account
-     * @param users - list of users
+     * @param users - the user directory
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
-        Account targetAccount = null;
+        try (AccountLocks.Held held = accountLocks.lockAll(command.getAccount())) {
+            executeLocked(users, commerciants, command);
+        }
+    }
 
+    // the command itself, run while holding the locks of the accounts it changes
+    private void executeLocked(final UserDirectory users, final List<Commerciant> commerciants,
+                               final CommandInput command) {
         // Finding the acc
-        for (User user : users) {
-            for (Account account : user.getAccounts()) {
-                if (account.getIban().equals(command.getAccount())) {
-                    targetAccount = account;
-                    break;
-                }
-            }
-            if (targetAccount != null) {
-                break; // it means we found the account stop the search
-            }
-        }
+        Account targetAccount = accountRegistry.findAccount(command.getAccount());
 
         // Error if it doesn't exist
         if (targetAccount == null) {
@@ -6,33 +6,40 @@ import org.poo.accountTypes.BusinessAccount;
 import org.poo.data.Commerciant;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.UserDirectory;
 
 import java.util.List;
 
 public class AddNewBusinessAssociateCommand implements Command {
+    private final AccountRegistry accountRegistry;
+
+    public AddNewBusinessAssociateCommand(final AccountRegistry accountRegistry) {
+        this.accountRegistry = accountRegistry;
+    }
 
     /***
      * Adds a new associate to a business account.
      * Associates can be either managers or employees.
      * basically adds it to the map in the business account
-     * @param users - list of users
+     * @param users - the user directory
      * @param commerciants
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
         String accountIban = command.getAccount();
         String newAssociateEmail = command.getEmail();
         String role = command.getRole();
 
-        User associate = findUserByEmail(users, command.getEmail());
+        User associate = users.findByEmail(command.getEmail());
         if (associate == null) {
             System.out.println("User not found");
             return;
         }
 
-        Account account = findAccountByIban(accountIban, users);
+        Account account = accountRegistry.findAccount(accountIban);
         if (account == null) {
             System.out.println("Account not found");
             return;
@@ -46,7 +53,7 @@ public class AddNewBusinessAssociateCommand implements Command {
         BusinessAccount businessAccount = (BusinessAccount) account;
 
 
-        User newAssociate = findUserByEmail(users, newAssociateEmail);
+        User newAssociate = users.findByEmail(newAssociateEmail);
         if (newAssociate == null) {
             System.out.println("User not found");
             return;
@@ -58,26 +65,6 @@ public class AddNewBusinessAssociateCommand implements Command {
         }
 
         businessAccount.addAssociate(newAssociateEmail, role, associate);
-        System.out.println("Associate added successfully  with reole " + role);
-    }
-
-    private User findUserByEmail(final List<User> users, final String email) {
-        for (User user : users) {
-            if (user.getEmail().equals(email)) {
-                return user;
-            }
-        }
-        return null;
-    }
-
-    private Account findAccountByIban(final String iban, final List<User> users) {
-        for (User user : users) {
-            for (Account account : user.getAccounts()) {
-                if (account.getIban().equals(iban)) {
-                    return account;
-                }
-            }
-        }
-        return null;
+        accountRegistry.addHolder(accountIban, associate);
     }
 }
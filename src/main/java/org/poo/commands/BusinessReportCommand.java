@@ -7,21 +7,25 @@ import org.poo.commandPattern.Command;
 import org.poo.accountTypes.BusinessAccount;
 import org.poo.data.Account;
 import org.poo.data.Commerciant;
+import org.poo.data.CommerciantStats;
 import org.poo.data.Stats;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.UserDirectory;
 
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.StreamSupport;
 
 public class BusinessReportCommand implements Command {
+    private final AccountRegistry accountRegistry;
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
 
-    public BusinessReportCommand(final ObjectMapper objectMapper, final ArrayNode output) {
+    public BusinessReportCommand(final AccountRegistry accountRegistry,
+                                 final ObjectMapper objectMapper, final OutputSink output) {
+        this.accountRegistry = accountRegistry;
         this.objectMapper = objectMapper;
         this.output = output;
     }
@@ -32,19 +36,19 @@ public class BusinessReportCommand implements Command {
      * - "transaction" - shows the total amount spent and deposited by each associate
      *  and the total amount spent and deposited by all associates
      *  - "commerciant" - shows the total amount received from each commerciant
-     * @param users - list of users
+     * @param users - the user directory
      * @param commerciants
      * @param cmd - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput cmd) {
         String accountIban = cmd.getAccount();
         String reportType = cmd.getType(); // "transaction" or "commerciant"
         int startTimestamp = cmd.getStartTimestamp();
         int endTimestamp = cmd.getEndTimestamp();
 
-        Account account = findAccountByIban(accountIban, users);
+        Account account = accountRegistry.findAccount(accountIban);
 
         if (account == null) {
             addErrorNode("businessReport", cmd.getTimestamp(), "Account not found");
@@ -64,7 +68,7 @@ public class BusinessReportCommand implements Command {
 
     private void generateTransactionReport(final CommandInput cmd,
                                            final BusinessAccount businessAccount,
-                                           final List<User> users,
+                                           final UserDirectory users,
                                            final int startTimestamp, final int endTimestamp) {
         ObjectNode node = objectMapper.createObjectNode();
         node.put("command", "businessReport");
@@ -88,13 +92,14 @@ public class BusinessReportCommand implements Command {
                 : businessAccount.getAssociates().entrySet()) {
             String associateEmail = associateEntry.getKey();
             String role = associateEntry.getValue();
-            User associate = findUserByEmail(users, associateEmail);
+            User associate = users.findByEmail(associateEmail);
 
             if (associate != null) {
+                // only what happened in the window of the report
                 Stats stats = businessAccount.getStatsMap().
                         getOrDefault(associateEmail, new Stats());
-                double spent = stats.getSpent();
-                double deposited = stats.getDeposited();
+                double spent = stats.getSpentBetween(startTimestamp, endTimestamp);
+                double deposited = stats.getDepositedBetween(startTimestamp, endTimestamp);
 
                 totalSpent += spent;
                 totalDeposited += deposited;
@@ -123,7 +128,7 @@ public class BusinessReportCommand implements Command {
 
     private void generateCommerciantReport(final CommandInput cmd,
                                            final BusinessAccount businessAccount,
-                                           final List<User> users,
+                                           final UserDirectory users,
                                            final int startTimestamp,
                                            final int endTimestamp) {
         ObjectNode node = objectMapper.createObjectNode();
@@ -140,36 +145,28 @@ public class BusinessReportCommand implements Command {
         outputNode.put("deposit limit", businessAccount.getGlobalDepositLimit());
         outputNode.put("statistics type", "commerciant");
 
-        Map<String, Double> commerciantTransactions = businessAccount.getCommerciants();
-
-        Map<String, Map<String, Double>> userSpentOnCommerciant
-                = businessAccount.getUserSpentOnCommerciant();
-        Map<String, Map<String, Integer>> userTxCountOnCommerciant
-                = businessAccount.getUserTxCountOnCommerciant();
-
-        for (Map.Entry<String, Double> entry : commerciantTransactions.entrySet()) {
+        // The view is kept sorted by commerciant name, so no sorting here
+        // and only the commerciants paid in the window of the report are shown
+        for (Map.Entry<String, CommerciantStats> entry
+                : businessAccount.getCommerciantStats().entrySet()) {
             String commerciantName = entry.getKey();
-            double totalReceived = entry.getValue();
+            CommerciantStats stats = entry.getValue();
+            if (!stats.hasTransactionsBetween(startTimestamp, endTimestamp)) {
+                continue;
+            }
 
             ObjectNode commerciantNode = objectMapper.createObjectNode();
             commerciantNode.put("commerciant", commerciantName);
-            commerciantNode.put("total received", totalReceived);
+            commerciantNode.put("total received",
+                    stats.getTotalReceivedBetween(startTimestamp, endTimestamp));
 
             ArrayNode managersArray = objectMapper.createArrayNode();
             ArrayNode employeesArray = objectMapper.createArrayNode();
 
-            // B) For the sums
-            Map<String, Double> userMap
-                    = userSpentOnCommerciant.getOrDefault(commerciantName, new HashMap<>());
-
-            // C) For the transaction counts
-            Map<String, Integer> txCountMap
-                    = userTxCountOnCommerciant.getOrDefault(commerciantName, new HashMap<>());
-
             // For each user who spent something
-            for (Map.Entry<String, Double> userSpentEntry : userMap.entrySet()) {
-                String email = userSpentEntry.getKey();
-                double spentForThisCommerciant = userSpentEntry.getValue();
+            for (String email : stats.getUsers()) {
+                double spentForThisCommerciant
+                        = stats.getSpentBetween(email, startTimestamp, endTimestamp);
                 if (spentForThisCommerciant <= 0) {
                     continue;
                 }
@@ -181,7 +178,7 @@ public class BusinessReportCommand implements Command {
                 }
 
                 // find user
-                User user = findUserByEmail(users, email);
+                User user = users.findByEmail(email);
                 if (user == null) {
                     continue;
                 }
@@ -189,7 +186,7 @@ public class BusinessReportCommand implements Command {
                 String fullName = user.getLastName() + " " + user.getFirstName();
 
                 // transaction count => how many times to insert them
-                int txCount = txCountMap.getOrDefault(email, 0);
+                int txCount = stats.getTransactionCountBetween(email, startTimestamp, endTimestamp);
 
                 // Add them 'txCount' times
                 if ("manager".equalsIgnoreCase(role)) {
@@ -209,27 +206,11 @@ public class BusinessReportCommand implements Command {
             commerciantsArray.add(commerciantNode);
         }
 
-        // optional sorting
-        sortArrayNodeByField(commerciantsArray, "commerciant");
-
         outputNode.set("commerciants", commerciantsArray);
         node.set("output", outputNode);
         output.add(node);
     }
 
-    private User findUserByEmail(final List<User> users, final String email) {
-        return users.stream().
-                filter(user -> user.getEmail().equals(email)).findFirst().orElse(null);
-    }
-
-    private Account findAccountByIban(final String iban, final List<User> users) {
-        return users.stream()
-                .flatMap(user -> user.getAccounts().stream())
-                .filter(account -> account.getIban().equals(iban))
-                .findFirst()
-                .orElse(null);
-    }
-
     private void addErrorNode(final String command, final int timestamp,
                               final String errorMessage) {
         ObjectNode node = objectMapper.createObjectNode();
@@ -238,14 +219,4 @@ public class BusinessReportCommand implements Command {
         node.put("error", errorMessage);
         output.add(node);
     }
-
-    private void sortArrayNodeByField(final ArrayNode arrayNode, final String fieldName) {
-        List<ObjectNode> sortedList = StreamSupport.stream(arrayNode.spliterator(), false)
-                .map(node -> (ObjectNode) node)
-                .sorted(Comparator.comparing(o -> o.get(fieldName).asText()))
-                .toList();
-
-        arrayNode.removeAll();
-        sortedList.forEach(arrayNode::add);
-    }
 }
@@ -1,67 +1,82 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.commandPattern.Command;
+import org.poo.currencyExchange.Currency;
 import org.poo.currencyExchange.ExchangeRateManager;
 import org.poo.data.Account;
 import org.poo.data.Card;
 import org.poo.data.Commerciant;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
 import org.poo.operationTypes.CashWithdrawalOperation;
 import org.poo.operationTypes.FailOperation;
+import org.poo.registry.AccountLocks;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.CardEntry;
+import org.poo.registry.CardRegistry;
+import org.poo.registry.UserDirectory;
 import java.util.List;
 
 public class CashWithdrawalCommand implements Command {
 
     private final ExchangeRateManager exchangeRateManager;
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
+    private final AccountRegistry accountRegistry;
+    private final CardRegistry cardRegistry;
+    private final AccountLocks accountLocks;
 
     public CashWithdrawalCommand(final ExchangeRateManager exchangeRateManager,
-                                 final ObjectMapper objectMapper, final ArrayNode output) {
+                                 final AccountRegistry accountRegistry,
+                                 final CardRegistry cardRegistry,
+                                 final ObjectMapper objectMapper, final OutputSink output,
+                                 final AccountLocks accountLocks) {
         this.exchangeRateManager = exchangeRateManager;
+        this.accountRegistry = accountRegistry;
+        this.cardRegistry = cardRegistry;
         this.objectMapper = objectMapper;
         this.output = output;
+        this.accountLocks = accountLocks;
     }
 
     /***
      * Withdraws cash from a user's account.
-     * @param users - list of users
+     * @param users - the user directory
      * @param commerciants
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
+        // the account of the card (if the card exists)
+        CardEntry cardEntry = cardRegistry.find(command.getCardNumber());
+        String cardIban = cardEntry != null ? cardEntry.getAccount().getIban() : null;
+        try (AccountLocks.Held held = accountLocks.lockAll(cardIban)) {
+            executeLocked(users, commerciants, command);
+        }
+    }
+
+    // the command itself, run while holding the locks of the accounts it changes
+    private void executeLocked(final UserDirectory users, final List<Commerciant> commerciants,
+                               final CommandInput command) {
         String cardNumber = command.getCardNumber();
         String userEmail = command.getEmail();
         double withdrawalAmountRON = command.getAmount(); // Withdrawal amount is in RON
 
         // Find user and account
-        User withdrawingUser = null;
+        User withdrawingUser = users.findByEmail(userEmail);
         Card withdrawingCard = null;
         Account linkedAccount = null;
 
-        for (User user : users) {
-            if (user.getEmail().equalsIgnoreCase(userEmail)) {
-                withdrawingUser = user;
-                for (Account account : user.getAccounts()) {
-                    for (Card card : account.getCards()) {
-                        if (card.getCardNumber().equals(cardNumber)) {
-                            withdrawingCard = card;
-                            linkedAccount = account;
-                            break;
-                        }
-                    }
-                    if (withdrawingCard != null) {
-                        break;
-                    }
-                }
-                break;
-            }
+        // The card has to be on one of the user's accounts
+        CardEntry cardEntry = cardRegistry.find(cardNumber);
+        if (withdrawingUser != null && cardEntry != null
+                && accountRegistry.isHeldBy(cardEntry.getAccount().getIban(), withdrawingUser)) {
+            withdrawingCard = cardEntry.getCard();
+            linkedAccount = cardEntry.getAccount();
         }
 
         if (withdrawingUser == null) {
@@ -73,7 +88,6 @@ public class CashWithdrawalCommand implements Command {
         if (withdrawingCard == null) {
             // JSON output for "Card not found"
             addOutputToJson("Card not found", command.getTimestamp());
-            System.out.println("Card not found, timestamp: " + command.getTimestamp());
             return;
         }
 
@@ -85,10 +99,11 @@ public class CashWithdrawalCommand implements Command {
 
         // Convert total amount to the account's currency if necessary
         double totalAmountInAccountCurrency = totalAmountRON;
-        if (!linkedAccount.getCurrency().equalsIgnoreCase("RON")) {
+        Currency ron = exchangeRateManager.getBaseCurrency();
+        if (linkedAccount.getCurrencyHandle() != ron) {
             double exchangeRate
-                    = exchangeRateManager.getExchangeRate("RON", linkedAccount.getCurrency());
-            if (exchangeRate != -1) {
+                    = exchangeRateManager.getExchangeRate(ron, linkedAccount.getCurrencyHandle());
+            if (!Double.isNaN(exchangeRate)) {
                 totalAmountInAccountCurrency = totalAmountRON * exchangeRate;
             } else {
                 addFailureToAccount(linkedAccount, command, "Exchange rate not available");
@@ -96,22 +111,21 @@ public class CashWithdrawalCommand implements Command {
             }
         }
 
-        // Check if the account has sufficient funds
-        if (linkedAccount.getBalance() < totalAmountInAccountCurrency) {
-            addFailureToAccount(linkedAccount, command, "Insufficient funds");
-            return;
-        }
-
-        // Check minimum balance constraint
-        if (linkedAccount.getBalance()
-                - totalAmountInAccountCurrency < linkedAccount.getMinBalance()) {
+        // Check minimum balance constraint (when the funds are enough,
+        // otherwise the failure is the insufficient funds one below)
+        double balance = linkedAccount.getBalance();
+        if (balance >= totalAmountInAccountCurrency
+                && balance - totalAmountInAccountCurrency < linkedAccount.getMinBalance()) {
             addFailureToAccount(linkedAccount, command,
                     "Cannot perform payment due to a minimum balance being set");
             return;
         }
 
-        // Deduct funds and mark card as used
-        linkedAccount.removeFunds(totalAmountInAccountCurrency);
+        // Deduct funds, only if there are enough (check + debit in one CAS)
+        if (!linkedAccount.tryRemoveFunds(totalAmountInAccountCurrency)) {
+            addFailureToAccount(linkedAccount, command, "Insufficient funds");
+            return;
+        }
 
         // Add cash withdrawal operation to the account
         CashWithdrawalOperation withdrawalOperation = new CashWithdrawalOperation(
@@ -1,43 +1,46 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.commandPattern.Command;
 import org.poo.data.Account;
 import org.poo.accountTypes.BusinessAccount;
 import org.poo.data.Commerciant;
-import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.UserDirectory;
 
 import java.util.List;
 
 public class ChangeDepositLimitCommand implements Command {
 
+    private final AccountRegistry accountRegistry;
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
 
-    public ChangeDepositLimitCommand(final ObjectMapper objectMapper,
-                                     final ArrayNode output) {
+    public ChangeDepositLimitCommand(final AccountRegistry accountRegistry,
+                                     final ObjectMapper objectMapper, final OutputSink output) {
+        this.accountRegistry = accountRegistry;
         this.objectMapper = objectMapper;
         this.output = output;
     }
 
     /***
      * Changes the deposit limit of a business account.
-     * @param users - list of users
+     * @param users - the user directory
      * @param commerciants
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
         String accountIban = command.getAccount();
         String requesterEmail = command.getEmail();
         double newDepositLimit = command.getAmount();
 
         // Find the account by IBAN
-        Account account = findAccountByIban(accountIban, users);
+        Account account = accountRegistry.findAccount(accountIban);
         if (account == null) {
             addErrorToOutput("Account not found.", command.getTimestamp());
             return;
@@ -62,17 +65,6 @@ public class ChangeDepositLimitCommand implements Command {
         businessAccount.changeGlobalDepositLimit(newDepositLimit);
     }
 
-    private Account findAccountByIban(final String iban, final List<User> users) {
-        for (User user : users) {
-            for (Account account : user.getAccounts()) {
-                if (account.getIban().equals(iban)) {
-                    return account;
-                }
-            }
-        }
-        return null;
-    }
-
     private void addErrorToOutput(final String description, final int timestamp) {
         ObjectNode errorNode = objectMapper.createObjectNode();
         errorNode.put("command", "changeDepositLimit");
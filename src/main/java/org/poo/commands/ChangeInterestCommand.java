@@ -1,22 +1,26 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.commandPattern.Command;
 import org.poo.data.Account;
 import org.poo.data.Commerciant;
-import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
 import org.poo.operationTypes.InfoOperation;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.UserDirectory;
 
 import java.util.List;
 
 public class ChangeInterestCommand implements Command {
+    private final AccountRegistry accountRegistry;
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
 
-    public ChangeInterestCommand(final ObjectMapper objectMapper, final ArrayNode output) {
+    public ChangeInterestCommand(final AccountRegistry accountRegistry,
+                                 final ObjectMapper objectMapper, final OutputSink output) {
+        this.accountRegistry = accountRegistry;
         this.objectMapper = objectMapper;
         this.output = output;
     }
@@ -27,26 +31,14 @@ public class ChangeInterestCommand implements Command {
      * If the account is not a savings account, an error is added to the output
      * If the account is a savings account, the interest rate is changed
      * with the method setInterestRate
-     * @param users list of users
+     * @param users the user directory
      * @param command the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
-        Account targetAccount = null;
-
         // Finding the acc
-        for (User user : users) {
-            for (Account account : user.getAccounts()) {
-                if (account.getIban().equals(command.getAccount())) {
-                    targetAccount = account;
-                    break;
-                }
-            }
-            if (targetAccount != null) {
-                break; // stop the search if we found the account
-            }
-        }
+        Account targetAccount = accountRegistry.findAccount(command.getAccount());
 
         // Error if it doesn't exist
         if (targetAccount == null) {
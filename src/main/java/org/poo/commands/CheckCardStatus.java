@@ -1,23 +1,28 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.commandPattern.Command;
 import org.poo.data.Account;
 import org.poo.data.Card;
 import org.poo.data.Commerciant;
-import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
 import org.poo.operationTypes.CheckCardStatusOperation;
+import org.poo.registry.CardEntry;
+import org.poo.registry.CardRegistry;
+import org.poo.registry.UserDirectory;
 
 import java.util.List;
 
 public class CheckCardStatus implements Command {
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
+    private final CardRegistry cardRegistry;
 
-    public CheckCardStatus(final ObjectMapper objectMapper, final ArrayNode output) {
+    public CheckCardStatus(final CardRegistry cardRegistry,
+                           final ObjectMapper objectMapper, final OutputSink output) {
+        this.cardRegistry = cardRegistry;
         this.objectMapper = objectMapper;
         this.output = output;
     }
@@ -28,33 +33,28 @@ public class CheckCardStatus implements Command {
      * If the account balance is below the minimum balance, a warning is added
      * to the account operations
      * Also errors for card not found are added to the output
-     * @param users list of users
+     * @param users the user directory
      * @param command the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
         boolean cardExists = false;
 
-        for (User user : users) {
-            for (Account account : user.getAccounts()) {
-                Card card = account.getCard(command.getCardNumber());
-                if (card != null) {
-                    cardExists = true;
+        CardEntry cardEntry = cardRegistry.find(command.getCardNumber());
+        if (cardEntry != null) {
+            cardExists = true;
 
-                    if (card.isFrozen()) {
-                        break;
-                    } else if (account.getBalance() <= account.getMinBalance()) {
-                        // Warning -> add operation
-                        CheckCardStatusOperation warningOperation = new CheckCardStatusOperation(
-                                command.getTimestamp(),
-                                "You have reached the minimum amount of funds, "
-                                        + "the card will be frozen"
-                        );
-                        account.addOperation(warningOperation);
-                    }
-                    break;
-                }
+            Account account = cardEntry.getAccount();
+            Card card = cardEntry.getCard();
+            if (!card.isFrozen() && account.getBalance() <= account.getMinBalance()) {
+                // Warning -> add operation
+                CheckCardStatusOperation warningOperation = new CheckCardStatusOperation(
+                        command.getTimestamp(),
+                        "You have reached the minimum amount of funds, "
+                                + "the card will be frozen"
+                );
+                account.addOperation(warningOperation);
             }
         }
 
@@ -2,16 +2,30 @@ package org.poo.commands;
 
 import org.poo.commandPattern.Command;
 import org.poo.data.Account;
+import org.poo.data.Card;
 import org.poo.data.Commerciant;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
 import org.poo.operationTypes.CreateCardOperation;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.CardRegistry;
+import org.poo.registry.UserDirectory;
+import org.poo.utils.IdGenerator;
 
 import java.util.List;
 
-import static org.poo.utils.Utils.generateCardNumber;
-
 public class CreateCardCommand implements Command {
+    private final AccountRegistry accountRegistry;
+    private final CardRegistry cardRegistry;
+    private final IdGenerator idGenerator;
+
+    public CreateCardCommand(final AccountRegistry accountRegistry,
+                             final CardRegistry cardRegistry,
+                             final IdGenerator idGenerator) {
+        this.accountRegistry = accountRegistry;
+        this.cardRegistry = cardRegistry;
+        this.idGenerator = idGenerator;
+    }
 
     /***
      * Handles the createCard command
@@ -19,43 +33,33 @@ public class CreateCardCommand implements Command {
      * Generates a new card number with the generateCardNumber method
      * Creates a new card for the specified account
      * Adds an operation for the card creation
-     * @param users - list of users
+     * @param users - the user directory
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
-        boolean cardCreated = false;
+        // Find the user by email
+        User user = users.findByEmail(command.getEmail());
 
-        // Iterate through users
-        for (User user : users) {
-            // Check if the email matches
-            if (user.getEmail().equals(command.getEmail())) {
-                for (Account account : user.getAccounts()) {
-                    // Check if the account IBAN matches
-                    if (account.getIban().equals(command.getAccount())) {
-                        // Generate the card number and add it to the account
-                        String cardNumber = generateCardNumber();
-                        account.addCard("regular", cardNumber);
+        // The account has to be in the user's list
+        if (user != null && accountRegistry.isHeldBy(command.getAccount(), user)) {
+            Account account = accountRegistry.findAccount(command.getAccount());
 
-                        // Create an operation for the newly created card
-                        CreateCardOperation cardCreationOperation = new CreateCardOperation(
-                                command.getTimestamp(),
-                                account.getIban(),
-                                cardNumber,
-                                user.getEmail(),
-                                "New card created"
-                        );
-                        account.addOperation(cardCreationOperation);
+            // Generate the card number and add it to the account
+            String cardNumber = idGenerator.generateCardNumber();
+            Card card = account.addCard("regular", cardNumber);
+            cardRegistry.register(card, account, user);
 
-                        cardCreated = true; // Mark the card as created
-                        break;
-                    }
-                }
-            }
-            if (cardCreated) {
-                break; // Exit the loops if the card has been created
-            }
+            // Create an operation for the newly created card
+            CreateCardOperation cardCreationOperation = new CreateCardOperation(
+                    command.getTimestamp(),
+                    account.getIban(),
+                    cardNumber,
+                    user.getEmail(),
+                    "New card created"
+            );
+            account.addOperation(cardCreationOperation);
         }
 
         // If the account or user is not found, no action is performed
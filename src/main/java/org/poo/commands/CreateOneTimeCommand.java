@@ -2,50 +2,63 @@ package org.poo.commands;
 
 import org.poo.commandPattern.Command;
 import org.poo.data.Account;
+import org.poo.data.Card;
 import org.poo.data.Commerciant;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
 import org.poo.operationTypes.CreateCardOperation;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.CardRegistry;
+import org.poo.registry.UserDirectory;
+import org.poo.utils.IdGenerator;
 
 import java.util.List;
 
-import static org.poo.utils.Utils.generateCardNumber;
-
 public class CreateOneTimeCommand implements Command {
+    private final AccountRegistry accountRegistry;
+    private final CardRegistry cardRegistry;
+    private final IdGenerator idGenerator;
+
+    public CreateOneTimeCommand(final AccountRegistry accountRegistry,
+                                final CardRegistry cardRegistry,
+                                final IdGenerator idGenerator) {
+        this.accountRegistry = accountRegistry;
+        this.cardRegistry = cardRegistry;
+        this.idGenerator = idGenerator;
+    }
+
     /***
      * Handles the createOneTime command
-     * Searches for the specified account and user
+     * Finds the specified account (and its owner) in the account registry
      * Generates a new card number with the generateCardNumber method
      * Creates a new card for the specified account
      * Adds an operation for the card creation
      * Just like the CreateCardCommand, but with a different card type
-     * @param users - list of users
+     * @param users - the user directory
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
-        // Iterate through users
-        for (User user : users) {
-            if (user.getAccounts() != null) {
-                for (Account account : user.getAccounts()) {
-                    if (account.getIban().equals(command.getAccount())) {
-                        String cardNumber = generateCardNumber();
-                        account.addCard("onetime", cardNumber);
-
-                        // Create an operation for the newly created card
-                        CreateCardOperation cardCreationOperation = new CreateCardOperation(
-                                command.getTimestamp(),
-                                account.getIban(),
-                                cardNumber,
-                                user.getEmail(),
-                                "New card created"
-                        );
-                        account.addOperation(cardCreationOperation);
-                        break;
-                    }
-                }
-            }
+        Account account = accountRegistry.findAccount(command.getAccount());
+        if (account == null) {
+            return;
         }
+
+        // The card holder is the owner of the account
+        User user = accountRegistry.findOwner(command.getAccount());
+        String cardNumber = idGenerator.generateCardNumber();
+        Card card = account.addCard("onetime", cardNumber);
+        cardRegistry.register(card, account, user);
+
+        // Create an operation for the newly created card
+        CreateCardOperation cardCreationOperation = new CreateCardOperation(
+                command.getTimestamp(),
+                account.getIban(),
+                cardNumber,
+                user.getEmail(),
+                "New card created"
+        );
+        account.addOperation(cardCreationOperation);
     }
 }
@@ -1,24 +1,33 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.commandPattern.Command;
 import org.poo.data.Account;
 import org.poo.data.Commerciant;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
 import org.poo.operationTypes.FailOperation;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.CardRegistry;
+import org.poo.registry.UserDirectory;
 
 import java.util.List;
 
 public class DeleteAccountCommand implements Command {
 
+    private final AccountRegistry accountRegistry;
+    private final CardRegistry cardRegistry;
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
 
     // Constructor because i need objectMapper and output for this one
-    public DeleteAccountCommand(final ObjectMapper objectMapper, final ArrayNode output) {
+    public DeleteAccountCommand(final AccountRegistry accountRegistry,
+                                final CardRegistry cardRegistry,
+                                final ObjectMapper objectMapper, final OutputSink output) {
+        this.accountRegistry = accountRegistry;
+        this.cardRegistry = cardRegistry;
         this.objectMapper = objectMapper;
         this.output = output;
     }
@@ -28,11 +37,11 @@ public class DeleteAccountCommand implements Command {
      * Deletes the account if it exists
      * If the account has funds, it will add an error to the account operations
      * If the user is not found, it will add an error to the output
-     * @param users - list of users
+     * @param users - the user directory
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
         ObjectNode deleteAccountOutput = objectMapper.createObjectNode();
         ObjectNode outputDetails = objectMapper.createObjectNode();
@@ -41,24 +50,13 @@ public class DeleteAccountCommand implements Command {
         deleteAccountOutput.put("timestamp", command.getTimestamp());
 
         // Searching by email
-        User targetUser = null;
-        for (User user : users) {
-            if (user.getEmail().equals(command.getEmail())) {
-                targetUser = user;
-                break;
-            }
-        }
+        User targetUser = users.findByEmail(command.getEmail());
 
         Account toBeDeletedAccount = null;
 
-        // Finding the acc to be deleted
-        if (targetUser != null) {
-            for (Account account : targetUser.getAccounts()) {
-                if (account.getIban().equals(command.getAccount())) {
-                    toBeDeletedAccount = account;
-                    break;
-                }
-            }
+        // Finding the acc to be deleted (it has to be in the user's list)
+        if (targetUser != null && accountRegistry.isHeldBy(command.getAccount(), targetUser)) {
+            toBeDeletedAccount = accountRegistry.findAccount(command.getAccount());
         }
 
         if (targetUser == null) {
@@ -73,6 +71,13 @@ public class DeleteAccountCommand implements Command {
         try {
             // Trying to delete
             targetUser.deleteAccount(command.getAccount());
+            accountRegistry.release(command.getAccount(), targetUser);
+
+            // Nobody has the account anymore -> its cards are gone too
+            if (accountRegistry.findAccount(command.getAccount()) == null
+                    && toBeDeletedAccount != null) {
+                cardRegistry.releaseAccount(toBeDeletedAccount);
+            }
             outputDetails.put("success", "Account deleted");
         } catch (IllegalArgumentException e) {
             // Catching the exception thrown by deleteAccount
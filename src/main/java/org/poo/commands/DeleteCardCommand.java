@@ -6,50 +6,57 @@ import org.poo.data.Commerciant;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
 import org.poo.operationTypes.DeleteCardOperation;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.CardEntry;
+import org.poo.registry.CardRegistry;
+import org.poo.registry.UserDirectory;
 
 import java.util.List;
 
 public class DeleteCardCommand implements Command {
+    private final AccountRegistry accountRegistry;
+    private final CardRegistry cardRegistry;
+
+    public DeleteCardCommand(final AccountRegistry accountRegistry,
+                             final CardRegistry cardRegistry) {
+        this.accountRegistry = accountRegistry;
+        this.cardRegistry = cardRegistry;
+    }
 
     /***
      * Handles the deleteCard command
-     * Searches for the specified card and user
-     * Deletes the card if it exists
-     * If the card is not found, it will add an error to the account operations
-     * @param users - list of users
+     * Searches for the specified card (in the card index) and user
+     * Deletes the card if it exists and it is on one of the user's accounts
+     * @param users - the user directory
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
-        // Iterate through users
-        for (User user : users) {
-            if (user.getEmail().equals(command.getEmail())) {
-                // Searching in all the accounts
-                // because you didn’t give me the IBAN in JSON :(
-                for (Account account : user.getAccounts()) {
-                    try {
-                        account.deleteCard(command.getCardNumber());
-
-                        // Create and add the DeleteCardOperation
-                        DeleteCardOperation deleteCardOperation = new DeleteCardOperation(
-                                command.getTimestamp(),
-                                account.getIban(),
-                                command.getCardNumber(),
-                                user.getEmail(),
-                                "The card has been destroyed"
-                        );
-                        account.addOperation(deleteCardOperation);
-
-                        break;
-                    } catch (IllegalArgumentException e) {
-                        // If exception, continue
-                        // (exception is -> card not found in account)
-                    }
-                }
-                break;
-            }
+        User user = users.findByEmail(command.getEmail());
+        if (user == null) {
+            return;
+        }
+
+        // The card has to be on one of the user's accounts
+        CardEntry cardEntry = cardRegistry.find(command.getCardNumber());
+        if (cardEntry == null
+                || !accountRegistry.isHeldBy(cardEntry.getAccount().getIban(), user)) {
+            return;
         }
+
+        Account account = cardEntry.getAccount();
+        account.deleteCard(command.getCardNumber());
+        cardRegistry.unregister(command.getCardNumber());
+
+        // Create and add the DeleteCardOperation
+        DeleteCardOperation deleteCardOperation = new DeleteCardOperation(
+                command.getTimestamp(),
+                account.getIban(),
+                command.getCardNumber(),
+                user.getEmail(),
+                "The card has been destroyed"
+        );
+        account.addOperation(deleteCardOperation);
     }
 }
-
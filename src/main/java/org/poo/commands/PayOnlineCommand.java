@@ -1,38 +1,62 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.accountTypes.BusinessAccount;
+import org.poo.cashbackStrategy.CashbackRules;
 import org.poo.cashbackStrategy.CashbackStrategy;
-import org.poo.cashbackStrategy.NrOfTransactionsStrategy;
-import org.poo.cashbackStrategy.SpendingThresholdStrategy;
 import org.poo.commandPattern.Command;
+import org.poo.currencyExchange.Currency;
 import org.poo.currencyExchange.ExchangeRateManager;
 import org.poo.data.Account;
 import org.poo.data.Card;
 import org.poo.data.Commerciant;
+import org.poo.data.Money;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
 import org.poo.operationTypes.CardPaymentOperation;
 import org.poo.operationTypes.CreateCardOperation;
 import org.poo.operationTypes.DeleteCardOperation;
 import org.poo.operationTypes.FailOperation;
+import org.poo.registry.AccountLocks;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.CardEntry;
+import org.poo.registry.CardRegistry;
+import org.poo.registry.MerchantDirectory;
+import org.poo.registry.UserDirectory;
+import org.poo.utils.IdGenerator;
 import java.util.List;
 
-import static org.poo.utils.Utils.generateCardNumber;
-
 public class PayOnlineCommand implements Command {
 
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
     private final ExchangeRateManager exchangeRateManager;
-
-    public PayOnlineCommand(final ObjectMapper objectMapper, final ArrayNode output,
-                            final ExchangeRateManager exchangeRateManager) {
+    private final AccountRegistry accountRegistry;
+    private final CardRegistry cardRegistry;
+    private final MerchantDirectory merchants;
+    private final IdGenerator idGenerator;
+    private final AccountLocks accountLocks;
+    private final CashbackRules cashbackRules;
+
+    public PayOnlineCommand(final ObjectMapper objectMapper, final OutputSink output,
+                            final ExchangeRateManager exchangeRateManager,
+                            final AccountRegistry accountRegistry,
+                            final CardRegistry cardRegistry,
+                            final MerchantDirectory merchants,
+                            final IdGenerator idGenerator,
+                            final AccountLocks accountLocks,
+                            final CashbackRules cashbackRules) {
         this.objectMapper = objectMapper;
         this.output = output;
         this.exchangeRateManager = exchangeRateManager;
+        this.accountRegistry = accountRegistry;
+        this.cardRegistry = cardRegistry;
+        this.merchants = merchants;
+        this.idGenerator = idGenerator;
+        this.accountLocks = accountLocks;
+        this.cashbackRules = cashbackRules;
     }
 
     /***
@@ -54,246 +78,269 @@ public class PayOnlineCommand implements Command {
      *  14. One-time card logic
      *  15. Add operations
      *  16. Add output
-     * @param users - list of users
+     * @param users - the user directory
      * @param commerciants
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
-        User payingUser = null;
+        // the account of the card (if the card exists)
+        CardEntry cardEntry = cardRegistry.find(command.getCardNumber());
+        String cardIban = cardEntry != null ? cardEntry.getAccount().getIban() : null;
+        try (AccountLocks.Held held = accountLocks.lockAll(cardIban)) {
+            executeLocked(users, commerciants, command);
+        }
+    }
 
+    // the command itself, run while holding the locks of the accounts it changes
+    private void executeLocked(final UserDirectory users, final List<Commerciant> commerciants,
+                               final CommandInput command) {
         // Find the user
-        for (User user : users) {
-            if (user.getEmail().equals(command.getEmail())) {
-                payingUser = user;
-                break;
-            }
-        }
+        User payingUser = users.findByEmail(command.getEmail());
 
         boolean cardFound = false;
 
         if (payingUser != null) {
-            for (Account account : payingUser.getAccounts()) {
-                Card card = account.getCard(command.getCardNumber());
-                if (card != null) {
-                    // Check if the card is already frozen
-                    if (card.isFrozen()) {
-                        FailOperation frozenOperation = new FailOperation(
-                                command.getTimestamp(),
-                                "The card is frozen"
-                        );
-                        account.addOperation(frozenOperation);
-                        cardFound = true;
-                        break;
-                    }
-
-                    // Convert the amount to RON for commission calculation
-                    double amountInRON = command.getAmount();
-                    if (!command.getCurrency().equalsIgnoreCase("RON")) {
-                        double exchangeRateToRON = exchangeRateManager.getExchangeRate(
-                                command.getCurrency(),
-                                "RON"
-                        );
-
-                        if (exchangeRateToRON != -1) {
-                            amountInRON = command.getAmount() * exchangeRateToRON;
-                        } else {
-                            FailOperation failOperation = new FailOperation(
-                                    command.getTimestamp(),
-                                    "Exchange rate not available for conversion to RON"
-                            );
-                            account.addOperation(failOperation);
-                            return;
-                        }
-                    }
-
-                    // Calculate commission in RON
-                    double commissionInRON = payingUser.applyCommission(amountInRON);
-
-                    // Convert the commission back to the account's currency
-                    double commissionInAccountCurrency = commissionInRON;
-                    if (!account.getCurrency().equalsIgnoreCase("RON")) {
-                        double exchangeRateToAccountCurrency
-                                = exchangeRateManager.getExchangeRate(
-                                "RON",
-                                account.getCurrency()
-                        );
-
-                        if (exchangeRateToAccountCurrency != -1) {
-                            commissionInAccountCurrency = commissionInRON
-                                    * exchangeRateToAccountCurrency;
-                        } else {
-                            FailOperation failOperation = new FailOperation(
-                                    command.getTimestamp(),
-                                    "Exchange rate not available for commission conversion"
-                            );
-                            account.addOperation(failOperation);
-                            return;
-                        }
-                    }
+            // The card has to be on one of the user's accounts
+            CardEntry cardEntry = cardRegistry.find(command.getCardNumber());
+            if (cardEntry != null
+                    && accountRegistry.isHeldBy(cardEntry.getAccount().getIban(), payingUser)) {
+                Account account = cardEntry.getAccount();
+                Card card = cardEntry.getCard();
+                // Check if the card is already frozen
+                if (card.isFrozen()) {
+                    FailOperation frozenOperation = new FailOperation(
+                            command.getTimestamp(),
+                            "The card is frozen"
+                    );
+                    account.addOperation(frozenOperation);
+                    return;
+                }
 
-                    double amountInAccountCurrency = command.getAmount();
-                    if (!command.getCurrency().equalsIgnoreCase(account.getCurrency())) {
-                        double exchangeRateToAccountCurrency
-                                = exchangeRateManager.getExchangeRate(
-                                command.getCurrency(),
-                                account.getCurrency()
+                // Interned currencies, so the checks below are reference compares
+                Currency paymentCurrency = exchangeRateManager.currencyOf(command.getCurrency());
+                Currency accountCurrency = account.getCurrencyHandle();
+                Currency ron = exchangeRateManager.getBaseCurrency();
+
+                // Convert the amount to RON for commission calculation
+                double amountInRON = command.getAmount();
+                if (paymentCurrency != ron) {
+                    double exchangeRateToRON = exchangeRateManager.getExchangeRate(
+                            paymentCurrency,
+                            ron
+                    );
+
+                    if (!Double.isNaN(exchangeRateToRON)) {
+                        amountInRON = command.getAmount() * exchangeRateToRON;
+                    } else {
+                        FailOperation failOperation = new FailOperation(
+                                command.getTimestamp(),
+                                "Exchange rate not available for conversion to RON"
                         );
-
-                        if (exchangeRateToAccountCurrency != -1) {
-                            amountInAccountCurrency
-                                    = command.getAmount() * exchangeRateToAccountCurrency;
-                        } else {
-                            FailOperation failOperation = new FailOperation(
-                                    command.getTimestamp(),
-                                    "Exchange rate not available for amount conversion"
-                            );
-                            account.addOperation(failOperation);
-                            return;
-                        }
+                        account.addOperation(failOperation);
+                        return;
                     }
+                }
 
-                    double totalAmountToDeduct
-                            = amountInAccountCurrency + commissionInAccountCurrency;
-
-                    // 1. Check for insufficient funds
-                    if (account.getBalance() < totalAmountToDeduct) {
-                        FailOperation insufficientFundsOperation = new FailOperation(
+                // Calculate commission in RON
+                double commissionInRON = payingUser.applyCommission(amountInRON);
+
+                // Convert the commission back to the account's currency
+                double commissionInAccountCurrency = commissionInRON;
+                if (accountCurrency != ron) {
+                    double exchangeRateToAccountCurrency
+                            = exchangeRateManager.getExchangeRate(
+                            ron,
+                            accountCurrency
+                    );
+
+                    if (!Double.isNaN(exchangeRateToAccountCurrency)) {
+                        commissionInAccountCurrency = commissionInRON
+                                * exchangeRateToAccountCurrency;
+                    } else {
+                        FailOperation failOperation = new FailOperation(
                                 command.getTimestamp(),
-                                "Insufficient funds"
+                                "Exchange rate not available for commission conversion"
                         );
-                        account.addOperation(insufficientFundsOperation);
-                        cardFound = true;
-                        break; // Stop execution
+                        account.addOperation(failOperation);
+                        return;
                     }
+                }
 
-                    // 2. Check if balance drops below the minimum balance
-                    if (account.getBalance() - totalAmountToDeduct <= account.getMinBalance()) {
-                        card.freeze(); // Freeze the card
-                        FailOperation freezeOperation = new FailOperation(
+                double amountInAccountCurrency = command.getAmount();
+                if (paymentCurrency != accountCurrency) {
+                    double exchangeRateToAccountCurrency
+                            = exchangeRateManager.getExchangeRate(
+                            paymentCurrency,
+                            accountCurrency
+                    );
+
+                    if (!Double.isNaN(exchangeRateToAccountCurrency)) {
+                        amountInAccountCurrency
+                                = command.getAmount() * exchangeRateToAccountCurrency;
+                    } else {
+                        FailOperation failOperation = new FailOperation(
                                 command.getTimestamp(),
-                                "The card is frozen"
+                                "Exchange rate not available for amount conversion"
                         );
-                        account.addOperation(freezeOperation);
-                        cardFound = true;
-                        break; // Stop execution
-                    }
-
-                    // Cashback logic
-                    double cashback = 0.0;
-                    Commerciant commerciant
-                            = Commerciant.getMerchantByName(command.getCommerciant());
-                    if (commerciant == null) {
-                        ObjectNode errorOutput = objectMapper.createObjectNode();
-                        errorOutput.put("description", "Merchant not found");
-                        errorOutput.put("timestamp", command.getTimestamp());
-                        output.add(errorOutput);
+                        account.addOperation(failOperation);
                         return;
                     }
+                }
 
-                    Commerciant commerciantForBussiness
-                            = Commerciant.getMerchantByName(command.getCommerciant());
-                    if (account.isBusinessAccount()) {
-                        BusinessAccount bAcc = (BusinessAccount) account;
-                        // if not bAcc.isAssociate(...), we skip
-                        if (bAcc.isAssociate(payingUser.getEmail())) {
-                            account.addCommerciantTransaction(commerciantForBussiness.getName(),
-                                    amountInAccountCurrency, command.getEmail());
-                        }
-                    }
-                    account.addSpent(command.getEmail(), amountInAccountCurrency);
-
-                    // Apply the correct cashback strategy
-                    CashbackStrategy cashbackStrategy;
-                    if (commerciant.getCashbackType().equals("nrOfTransactions")) {
-                        cashbackStrategy = new NrOfTransactionsStrategy(account);
-                        cashback = cashbackStrategy.calculateCashback(
-                                command.getAmount(),
-                                commerciant.getCategory(),
-                                commerciant.incrementAndGetTransactionCount(account),
-                                0.0
-                        );
-                    } else if (commerciant.getCashbackType().equals("spendingThreshold")) {
-                        // nu am inteles cerinta, asta e daca se contorizeaza pe merchant
-                        account.addMerchantSpending(commerciant.getName(), amountInRON);
-                        // asta e daca se contorizeaza pe toate spendingurile (o sa vad din teste,
-                        // sper sa nu uit pe aia gresita)
-                        account.incrementTotalSpentOnTresholdCashback(amountInRON);
-                        cashbackStrategy = new SpendingThresholdStrategy(payingUser);
-                        cashback = cashbackStrategy.calculateCashback(
-                                command.getAmount(),
-                                commerciant.getCategory(),
-                                0,
-                                account.getTotalSpentOnTresholdCashback()
-                        );
+                double totalAmountToDeduct
+                        = amountInAccountCurrency + commissionInAccountCurrency;
+
+                // 1. Check for insufficient funds
+                if (account.getBalance() < totalAmountToDeduct) {
+                    FailOperation insufficientFundsOperation = new FailOperation(
+                            command.getTimestamp(),
+                            "Insufficient funds"
+                    );
+                    account.addOperation(insufficientFundsOperation);
+                    return; // Stop execution
+                }
 
-                        if (command.getTimestamp() == 261) {
-                            System.out.println("Cashback is: " + cashback);
-                            System.out.println("Total spending is: "
-                                    + account.getTotalSpentOnTresholdCashback());
-                        }
+                // 2. Check if balance drops below the minimum balance
+                if (account.getBalance() - totalAmountToDeduct <= account.getMinBalance()) {
+                    card.freeze(); // Freeze the card
+                    FailOperation freezeOperation = new FailOperation(
+                            command.getTimestamp(),
+                            "The card is frozen"
+                    );
+                    account.addOperation(freezeOperation);
+                    return; // Stop execution
+                }
 
-                        // Convert cashback to the account's currency
-                        if (!command.getCurrency().equals(account.getCurrency())) {
-                            double cashbackExchangeRate = exchangeRateManager.getExchangeRate(
-                                    command.getCurrency(), // Original transaction currency
-                                    account.getCurrency()  // Account currency
-                            );
-
-                            if (cashbackExchangeRate != -1) {
-                                cashback *= cashbackExchangeRate; // Apply exchange rate to cashback
-                            } else {
-                                cashback = 0.0; // If exchange rate is not found, no cashback
-                            }
-                        }
+                // Cashback logic
+                double cashback = 0.0;
+                Commerciant commerciant
+                        = merchants.findByName(command.getCommerciant());
+                if (commerciant == null) {
+                    ObjectNode errorOutput = objectMapper.createObjectNode();
+                    errorOutput.put("description", "Merchant not found");
+                    errorOutput.put("timestamp", command.getTimestamp());
+                    output.add(errorOutput);
+                    return;
+                }
 
-                    }
-                    // Apply cashback and perform the payment
-                    double finalAmount = totalAmountToDeduct - cashback;
-                    account.removeFunds(finalAmount);
+                // 3. Take the whole amount now, the check and the debit in one step
+                // (the cashback below is given back from it), so nothing can spend
+                // the money between the checks above and the payment
+                if (!account.tryRemoveFunds(totalAmountToDeduct)) {
+                    FailOperation insufficientFundsOperation = new FailOperation(
+                            command.getTimestamp(),
+                            "Insufficient funds"
+                    );
+                    account.addOperation(insufficientFundsOperation);
+                    return;
+                }
 
-                    // Add payment operation
-                    if (finalAmount > 0) {
-                        CardPaymentOperation paymentOperation = new CardPaymentOperation(
-                                command.getTimestamp(),
-                                account.getIban(),
-                                command.getCardNumber(),
-                                command.getCommerciant(),
-                                finalAmount + cashback - commissionInAccountCurrency,
-                                account.getCurrency(),
-                                "Card payment"
-                        );
-                        account.addOperation(paymentOperation);
+                Commerciant commerciantForBussiness
+                        = merchants.findByName(command.getCommerciant());
+                if (account.isBusinessAccount()) {
+                    BusinessAccount bAcc = (BusinessAccount) account;
+                    // if not bAcc.isAssociate(...), we skip
+                    if (bAcc.isAssociate(payingUser.getEmail())) {
+                        account.addCommerciantTransaction(commerciantForBussiness.getName(),
+                                command.getTimestamp(), amountInAccountCurrency,
+                                command.getEmail());
                     }
-
-                    // One-time card logic
-                    if (card.getCardType().equals("OneTime")) {
-                        String oldCardNr = card.getCardNumber();
-                        DeleteCardOperation destroyOneTime = new DeleteCardOperation(
-                                command.getTimestamp(),
-                                account.getIban(),
-                                oldCardNr,
-                                payingUser.getEmail(),
-                                "The card has been destroyed"
+                }
+                account.addSpent(command.getEmail(), command.getTimestamp(),
+                        amountInAccountCurrency);
+
+                // Apply the correct cashback strategy
+                CashbackStrategy cashbackStrategy;
+                if (commerciant.getCashbackType().equals("nrOfTransactions")) {
+                    cashbackStrategy = cashbackRules.getNrOfTransactions();
+                    cashback = cashbackStrategy.calculateCashback(
+                            account,
+                            payingUser,
+                            command.getAmount(),
+                            commerciant.getCategory(),
+                            commerciant.incrementAndGetTransactionCount(account),
+                            0.0
+                    );
+                } else if (commerciant.getCashbackType().equals("spendingThreshold")) {
+                    // se contorizeaza pe toate spendingurile
+                    // (per merchant e in spending ledger-ul contului)
+                    account.incrementTotalSpentOnTresholdCashback(amountInRON);
+                    cashbackStrategy = cashbackRules.getSpendingThreshold();
+                    cashback = cashbackStrategy.calculateCashback(
+                            account,
+                            payingUser,
+                            command.getAmount(),
+                            commerciant.getCategory(),
+                            0,
+                            account.getTotalSpentOnTresholdCashback()
+                    );
+
+                    // Convert cashback to the account's currency
+                    if (paymentCurrency != accountCurrency) {
+                        double cashbackExchangeRate = exchangeRateManager.getExchangeRate(
+                                paymentCurrency, // Original transaction currency
+                                accountCurrency  // Account currency
                         );
-                        account.addOperation(destroyOneTime);
-                        account.deleteCard(oldCardNr);
 
-                        CreateCardOperation newOneTime = new CreateCardOperation(
-                                command.getTimestamp(),
-                                account.getIban(),
-                                generateCardNumber(),
-                                payingUser.getEmail(),
-                                "New card created"
-                        );
-                        account.addOperation(newOneTime);
-                        account.addCard("OneTime", newOneTime.getCardNumber());
+                        if (!Double.isNaN(cashbackExchangeRate)) {
+                            cashback *= cashbackExchangeRate; // Apply exchange rate to cashback
+                        } else {
+                            cashback = 0.0; // If exchange rate is not found, no cashback
+                        }
                     }
 
-                    cardFound = true;
-                    break;
                 }
+                // Apply cashback: of what was taken, only finalAmount is paid
+                // (a cashback that is not a number is not given back)
+                double finalAmount = totalAmountToDeduct - cashback;
+                long paid = Money.toMinor(finalAmount);
+                if (paid != Money.NO_AMOUNT) {
+                    account.addFundsMinor(Money.toMinor(totalAmountToDeduct) - paid);
+                }
+
+                // Add payment operation
+                if (finalAmount > 0) {
+                    CardPaymentOperation paymentOperation = new CardPaymentOperation(
+                            command.getTimestamp(),
+                            account.getIban(),
+                            command.getCardNumber(),
+                            command.getCommerciant(),
+                            finalAmount + cashback - commissionInAccountCurrency,
+                            account.getCurrency(),
+                            "Card payment"
+                    );
+                    account.addOperation(paymentOperation);
+                }
+
+                // One-time card logic
+                if (card.getCardType().equals("OneTime")) {
+                    String oldCardNr = card.getCardNumber();
+                    DeleteCardOperation destroyOneTime = new DeleteCardOperation(
+                            command.getTimestamp(),
+                            account.getIban(),
+                            oldCardNr,
+                            payingUser.getEmail(),
+                            "The card has been destroyed"
+                    );
+                    account.addOperation(destroyOneTime);
+                    account.deleteCard(oldCardNr);
+                    cardRegistry.unregister(oldCardNr);
+
+                    CreateCardOperation newOneTime = new CreateCardOperation(
+                            command.getTimestamp(),
+                            account.getIban(),
+                            idGenerator.generateCardNumber(),
+                            payingUser.getEmail(),
+                            "New card created"
+                    );
+                    account.addOperation(newOneTime);
+                    Card newCard = account.addCard("OneTime", newOneTime.getCardNumber());
+                    cardRegistry.register(newCard, account, cardEntry.getOwner());
+                }
+
+                cardFound = true;
             }
         }
 
@@ -5,22 +5,22 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.commandPattern.Command;
-import org.poo.data.Account;
 import org.poo.data.Commerciant;
 import org.poo.data.Operation;
+import org.poo.data.TimeOrderedOperations;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
 import org.poo.operationTypes.*;
+import org.poo.registry.UserDirectory;
 
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 
 public class PrintTransactions implements Command {
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
 
-    public PrintTransactions(final ObjectMapper objectMapper, final ArrayNode output) {
+    public PrintTransactions(final ObjectMapper objectMapper, final OutputSink output) {
         this.objectMapper = objectMapper;
         this.output = output;
     }
@@ -29,40 +29,27 @@ public class PrintTransactions implements Command {
      * Handles the printTransactions command which
      * prints the operations held in each account
      * First, I find the user with the given email
-     * Then, I sort all operations by timestamp
-     * I iterate through the sorted operations and add them to the output
-     * @param users - list of users
+     * Then, I merge the operations of all the accounts by timestamp
+     * I iterate through the merged operations and add them to the output
+     * @param users - the user directory
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
-        User userWithTransactions = null;
-
         // Find the user
-        for (User user : users) {
-            if (user.getEmail().equals(command.getEmail())) {
-                userWithTransactions = user;
-                break;
-            }
-        }
+        User userWithTransactions = users.findByEmail(command.getEmail());
 
         if (userWithTransactions != null) {
             ObjectNode transactionsResponse = objectMapper.createObjectNode();
             transactionsResponse.put("command", "printTransactions");
             ArrayNode transactionsOutput = objectMapper.createArrayNode();
 
-            // Putting all operations in a temp list so I can sort them
-            List<Operation> allOperations = new ArrayList<>();
-            for (Account account : userWithTransactions.getAccounts()) {
-                allOperations.addAll(account.getOperations());
-            }
-
-            // Sort all operations by timestamp
-            allOperations.sort(Comparator.comparingInt(Operation::getTimestamp));
-
-            // Iterate through the sorted operations
-            for (Operation operation : allOperations) {
+            // Iterate through the operations of all the accounts, merged by timestamp
+            // (the operations of every account are already in timestamp order,
+            // so no copy and no sort is needed)
+            for (Operation operation
+                    : new TimeOrderedOperations(userWithTransactions.getAccounts())) {
                 ObjectNode operationNode = objectMapper.createObjectNode();
                 operationNode.put("timestamp", operation.getTimestamp());
 
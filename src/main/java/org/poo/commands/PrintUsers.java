@@ -9,16 +9,18 @@ import org.poo.data.Card;
 import org.poo.data.Commerciant;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
+import org.poo.registry.UserDirectory;
 
 import java.util.List;
 
 public class PrintUsers implements Command {
 
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
 
     // I need the ObjectMapper and the output ArrayNode too for this one
-    public PrintUsers(final ObjectMapper objectMapper, final ArrayNode output) {
+    public PrintUsers(final ObjectMapper objectMapper, final OutputSink output) {
         this.objectMapper = objectMapper;
         this.output = output;
     }
@@ -27,11 +29,11 @@ public class PrintUsers implements Command {
      * Print user command nothing to complicated
      * I find each user and then I print all the accounts and cards
      * just like in the ref cause I didnt have an example xD
-     * @param users - list of users
+     * @param users - the user directory
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
         ObjectNode commandOutput = objectMapper.createObjectNode();
         ArrayNode usersOutput = objectMapper.createArrayNode();
@@ -1,15 +1,16 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.commandPattern.Command;
 import org.poo.data.Account;
 import org.poo.data.Commerciant;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
 import org.poo.splitManager.SplitPaymentManager;
 import org.poo.splitManager.SplitPaymentState;
+import org.poo.registry.UserDirectory;
 
 import java.util.List;
 
@@ -21,26 +22,29 @@ import java.util.List;
  */
 public class RejectSplitPaymentCommand implements Command {
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
+    private final SplitPaymentManager splitPaymentManager;
 
-    public RejectSplitPaymentCommand(final ObjectMapper objectMapper, final ArrayNode output) {
+    public RejectSplitPaymentCommand(final ObjectMapper objectMapper, final OutputSink output,
+                                               final SplitPaymentManager splitPaymentManager) {
         this.objectMapper = objectMapper;
         this.output = output;
+        this.splitPaymentManager = splitPaymentManager;
     }
 
     /***
      * Rejects a split payment.
      * IF IT IS REJECTED THE PENDING SPLIT PAYMENT IS REMOVED
-     * @param users - list of users
+     * @param users - the user directory
      * @param commerciants
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
         ObjectNode outputNode = objectMapper.createObjectNode();
         // 1) Find the user
-        User user = findUserByEmail(users, command.getEmail());
+        User user = users.findByEmail(command.getEmail());
         if (user == null) {
             outputNode.put("command", "rejectSplitPayment");
             ObjectNode errorNode = objectMapper.createObjectNode();
@@ -58,7 +62,7 @@ public class RejectSplitPaymentCommand implements Command {
             splitType = "equal";
         }
 
-        SplitPaymentManager manager = SplitPaymentManager.getInstance();
+        SplitPaymentManager manager = splitPaymentManager;
 
         SplitPaymentState state = null;
         Account userAccount = null;
@@ -87,15 +91,6 @@ public class RejectSplitPaymentCommand implements Command {
         }
     }
 
-    private User findUserByEmail(final List<User> users, final String email) {
-        for (User u : users) {
-            if (u.getEmail().equals(email)) {
-                return u;
-            }
-        }
-        return null;
-    }
-
     private void generateOutput(final String message, final int timestamp) {
         ObjectNode node = objectMapper.createObjectNode();
         node.put("timestamp", timestamp);
@@ -7,17 +7,22 @@ import org.poo.commandPattern.Command;
 import org.poo.data.Account;
 import org.poo.data.Commerciant;
 import org.poo.data.Operation;
-import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
 import org.poo.operationTypes.*;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.UserDirectory;
 
 import java.util.List;
 
 public class Report implements Command {
+    private final AccountRegistry accountRegistry;
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
 
-    public Report(final ObjectMapper objectMapper, final ArrayNode output) {
+    public Report(final AccountRegistry accountRegistry,
+                  final ObjectMapper objectMapper, final OutputSink output) {
+        this.accountRegistry = accountRegistry;
         this.objectMapper = objectMapper;
         this.output = output;
     }
@@ -29,26 +34,14 @@ public class Report implements Command {
      * between two timestamps, pretty easy
      * I know i could have added smth to not have the same code
      * for the switch cases but idk
-     * @param users - list of users
+     * @param users - the user directory
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
-        Account targetAccount = null;
-
         // Finding the acc
-        for (User user : users) {
-            for (Account account : user.getAccounts()) {
-                if (account.getIban().equals(command.getAccount())) {
-                    targetAccount = account;
-                    break;
-                }
-            }
-            if (targetAccount != null) {
-                break;
-            }
-        }
+        Account targetAccount = accountRegistry.findAccount(command.getAccount());
 
         // Error acc not found
         if (targetAccount == null) {
@@ -69,7 +62,9 @@ public class Report implements Command {
         ArrayNode transactionsOutput = objectMapper.createArrayNode();
 
         // Just like on print transaction but beetween some timestamps
-        for (Operation operation : targetAccount.getOperations()) {
+        // (only the operations of the window are read, see getOperationsBetween)
+        for (Operation operation : targetAccount.getOperationsBetween(
+                command.getStartTimestamp(), command.getEndTimestamp())) {
             if (operation.getTimestamp() >= command.getStartTimestamp()
                     && operation.getTimestamp() <= command.getEndTimestamp()) {
 
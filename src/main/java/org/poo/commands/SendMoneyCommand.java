@@ -1,66 +1,75 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.poo.cashbackStrategy.CashbackRules;
 import org.poo.cashbackStrategy.CashbackStrategy;
-import org.poo.cashbackStrategy.NrOfTransactionsStrategy;
-import org.poo.cashbackStrategy.SpendingThresholdStrategy;
 import org.poo.commandPattern.Command;
+import org.poo.currencyExchange.Currency;
 import org.poo.currencyExchange.ExchangeRateManager;
 import org.poo.data.Account;
 import org.poo.data.Commerciant;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
 import org.poo.operationTypes.FailOperation;
 import org.poo.operationTypes.TransactionOperation;
+import org.poo.registry.AccountLocks;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.UserDirectory;
 
 import java.util.List;
 
 public class SendMoneyCommand implements Command {
 
     private final ExchangeRateManager exchangeRateManager;
+    private final AccountRegistry accountRegistry;
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
+    private final AccountLocks accountLocks;
+    private final CashbackRules cashbackRules;
 
     public SendMoneyCommand(final ExchangeRateManager exchangeRateManager,
-                            final ObjectMapper objectMapper, final ArrayNode output) {
+                            final AccountRegistry accountRegistry,
+                            final ObjectMapper objectMapper, final OutputSink output,
+                            final AccountLocks accountLocks,
+                            final CashbackRules cashbackRules) {
         this.exchangeRateManager = exchangeRateManager;
+        this.accountRegistry = accountRegistry;
         this.objectMapper = objectMapper;
         this.output = output;
+        this.accountLocks = accountLocks;
+        this.cashbackRules = cashbackRules;
     }
 
     /***
      * Executes the sendMoney command.
      * THE RECEIVER CAN BE A USER OR A COMMERCIANT
-     * @param users - list of users
+     * @param users - the user directory
      * @param commerciants
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
-        Account fromAccount = null;
-        Account toAccount = null;
+        try (AccountLocks.Held held = accountLocks.lockAll(command.getAccount(),
+                command.getReceiver())) {
+            executeLocked(users, commerciants, command);
+        }
+    }
+
+    // the command itself, run while holding the locks of the accounts it changes
+    private void executeLocked(final UserDirectory users, final List<Commerciant> commerciants,
+                               final CommandInput command) {
         String toAccountCommerciantIBAN = null;
         boolean receiverIsCommerciant = false;
-        boolean receiverIsUser = false;
-        User senderUser = null;
 
         // Find accounts and sender user
-        for (User user : users) {
-            for (Account account : user.getAccounts()) {
-                if (account.getIban().equals(command.getAccount())) {
-                    fromAccount = account;
-                }
-                if (account.getIban().equals(command.getReceiver())) {
-                    toAccount = account;
-                    receiverIsUser = true;
-                }
-            }
-        }
+        Account fromAccount = accountRegistry.findAccount(command.getAccount());
+        Account toAccount = accountRegistry.findAccount(command.getReceiver());
+        boolean receiverIsUser = toAccount != null;
 
-        senderUser = findUserByEmail(users, command.getEmail());
+        User senderUser = users.findByEmail(command.getEmail());
         Commerciant potentialCommerciant = null;
 
         // Handle user not found case
@@ -77,11 +86,6 @@ public class SendMoneyCommand implements Command {
             }
         }
 
-        if (command.getTimestamp() == 248) {
-            System.out.println("AAAAAAAAAAAAAAAA");
-            System.out.println("From account is " + fromAccount);
-            System.out.println("To account is " + toAccount);
-        }
         // Handle account not found case
         if (fromAccount == null) {
             return;
@@ -92,18 +96,24 @@ public class SendMoneyCommand implements Command {
             return;
         }
 
+        // Interned currencies, so the checks below are reference compares
+        Currency ron = exchangeRateManager.getBaseCurrency();
+        Currency fromCurrency = fromAccount.getCurrencyHandle();
+
         if (receiverIsUser) {
+            Currency toCurrency = toAccount.getCurrencyHandle();
+
             // Convert the amount to the receiver's currency
             double exchangeRate = exchangeRateManager.
-                    getExchangeRate(fromAccount.getCurrency(), toAccount.getCurrency());
+                    getExchangeRate(fromCurrency, toCurrency);
             double convertedAmount = command.getAmount() * exchangeRate;
 
             // Convert the transaction amount to RON for commission calculation
             double transactionAmountInRON = convertedAmount; // Default to converted amount
-            if (!toAccount.getCurrency().equals("RON")) {
+            if (toCurrency != ron) {
                 double reverseExchangeRate = exchangeRateManager.
-                        getExchangeRate(toAccount.getCurrency(), "RON");
-                if (reverseExchangeRate != -1) {
+                        getExchangeRate(toCurrency, ron);
+                if (!Double.isNaN(reverseExchangeRate)) {
                     transactionAmountInRON = convertedAmount * reverseExchangeRate;
                 }
             }
@@ -113,10 +123,10 @@ public class SendMoneyCommand implements Command {
 
             // Convert commission back to the sender's account currency
             double commissionInSenderCurrency = commission;
-            if (!fromAccount.getCurrency().equalsIgnoreCase("RON")) {
+            if (fromCurrency != ron) {
                 double reverseExchangeRate = exchangeRateManager.
-                        getExchangeRate("RON", fromAccount.getCurrency());
-                if (reverseExchangeRate != -1) {
+                        getExchangeRate(ron, fromCurrency);
+                if (!Double.isNaN(reverseExchangeRate)) {
                     commissionInSenderCurrency = commission * reverseExchangeRate;
                 } else {
                     commissionInSenderCurrency = 0.0; // If exchange rate is not available,
@@ -127,8 +137,8 @@ public class SendMoneyCommand implements Command {
             // Total amount to deduct (transaction + converted commission)
             double totalAmountToDeduct = command.getAmount() + commissionInSenderCurrency;
 
-            // Check for sufficient funds
-            if (fromAccount.getBalance() < totalAmountToDeduct) {
+            // Deduct funds from sender, only if there are enough (check + debit in one CAS)
+            if (!fromAccount.tryRemoveFunds(totalAmountToDeduct)) {
                 FailOperation insufficientFundsOperation = new FailOperation(
                         command.getTimestamp(),
                         "Insufficient funds"
@@ -137,9 +147,10 @@ public class SendMoneyCommand implements Command {
                 return;
             }
 
-            // Deduct funds from sender and add funds to receiver
-            fromAccount.removeFunds(totalAmountToDeduct);
-            toAccount.addFunds(convertedAmount);
+            // Add funds to receiver
+            // (the credit converted straight to minor units, exact)
+            toAccount.addFundsMinor(exchangeRateManager.convertToMinor(command.getAmount(),
+                    fromCurrency, toCurrency));
 
             // Create sender transaction operation with commission
             TransactionOperation senderTransaction = new TransactionOperation(
@@ -167,18 +178,15 @@ public class SendMoneyCommand implements Command {
             fromAccount.addOperation(senderTransaction);
             toAccount.addOperation(receiverTransaction);
         } else {
-            // Deduct funds from sender
-            fromAccount.removeFunds(command.getAmount());
-
             // 1) Convert 'command.getAmount()'
             // from fromAccount currency -> RON for commission/cashback
             double transactionAmountInRON = command.getAmount();
-            if (!fromAccount.getCurrency().equalsIgnoreCase("RON")) {
+            if (fromCurrency != ron) {
                 double exRate = exchangeRateManager.getExchangeRate(
-                        fromAccount.getCurrency(),
-                        "RON"
+                        fromCurrency,
+                        ron
                 );
-                if (exRate != -1) {
+                if (!Double.isNaN(exRate)) {
                     transactionAmountInRON = command.getAmount() * exRate;
                 }
             }
@@ -188,32 +196,47 @@ public class SendMoneyCommand implements Command {
 
             // 3) Convert commission back to fromAccount currency
             double commissionInSenderCurrency = commission;
-            if (!fromAccount.getCurrency().equalsIgnoreCase("RON")) {
+            if (fromCurrency != ron) {
                 double reverseExRate = exchangeRateManager.
-                        getExchangeRate("RON", fromAccount.getCurrency());
-                if (reverseExRate != -1) {
+                        getExchangeRate(ron, fromCurrency);
+                if (!Double.isNaN(reverseExRate)) {
                     commissionInSenderCurrency = commission * reverseExRate;
                 } else {
                     commissionInSenderCurrency = 0.0;
                 }
             }
 
-            fromAccount.removeFunds(commissionInSenderCurrency);
+            // Deduct the payment and the commission, only if there are enough funds
+            // (check + debit in one CAS). Otherwise nothing is paid: the sender gets
+            // an "Insufficient funds" operation, like a transfer to a user, and the
+            // commerciant, the cashback and the business stats are left untouched
+            if (!fromAccount.tryRemoveFunds(command.getAmount() + commissionInSenderCurrency)) {
+                FailOperation insufficientFundsOperation = new FailOperation(
+                        command.getTimestamp(),
+                        "Insufficient funds"
+                );
+                fromAccount.addOperation(insufficientFundsOperation);
+                return;
+            }
 
             double cashback = 0.0;
             CashbackStrategy cashbackStrategy;
             if (potentialCommerciant.getCashbackType().
                     equalsIgnoreCase("nrOfTransactions")) {
-                cashbackStrategy = new NrOfTransactionsStrategy(fromAccount);
+                cashbackStrategy = cashbackRules.getNrOfTransactions();
                 cashback = cashbackStrategy.calculateCashback(
+                        fromAccount,
+                        senderUser,
                         command.getAmount(),
                         potentialCommerciant.getCategory(),
                         potentialCommerciant.incrementAndGetTransactionCount(fromAccount),
                         0.0
                 );
             } else {
-                cashbackStrategy = new SpendingThresholdStrategy(senderUser);
+                cashbackStrategy = cashbackRules.getSpendingThreshold();
                 cashback = cashbackStrategy.calculateCashback(
+                        fromAccount,
+                        senderUser,
                         command.getAmount(),
                         potentialCommerciant.getCategory(),
                         0,
@@ -237,7 +260,7 @@ public class SendMoneyCommand implements Command {
 
             fromAccount.addOperation(senderTransaction);
             fromAccount.addCommerciantTransaction(potentialCommerciant.getName(),
-                    command.getAmount(), senderUser.getEmail());
+                    command.getTimestamp(), command.getAmount(), senderUser.getEmail());
         }
     }
 
@@ -258,13 +281,4 @@ public class SendMoneyCommand implements Command {
 
         output.add(outputNode);
     }
-
-    private User findUserByEmail(final List<User> users, final String email) {
-        for (User user : users) {
-            if (user.getEmail().equals(email)) {
-                return user;
-            }
-        }
-        return null;
-    }
 }
@@ -1,21 +1,25 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.commandPattern.Command;
 import org.poo.data.Account;
 import org.poo.data.Commerciant;
-import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.UserDirectory;
 
 import java.util.List;
 
 public class SetMinimumBalance implements Command {
+    private final AccountRegistry accountRegistry;
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
 
-    public SetMinimumBalance(final ObjectMapper objectMapper, final ArrayNode output) {
+    public SetMinimumBalance(final AccountRegistry accountRegistry,
+                             final ObjectMapper objectMapper, final OutputSink output) {
+        this.accountRegistry = accountRegistry;
         this.objectMapper = objectMapper;
         this.output = output;
     }
@@ -25,26 +29,14 @@ public class SetMinimumBalance implements Command {
      * with the setter created in acc
      * of course if the acc not existent i put an error
      * on the output
-     * @param users - list of users
+     * @param users - the user directory
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
-        Account targetAccount = null;
-
         // finding the acc
-        for (User user : users) {
-            for (Account account : user.getAccounts()) {
-                if (account.getIban().equals(command.getAccount())) {
-                    targetAccount = account;
-                    break;
-                }
-            }
-            if (targetAccount != null) {
-                break;
-            }
-        }
+        Account targetAccount = accountRegistry.findAccount(command.getAccount());
 
         // nonexistent acc = error
         if (targetAccount == null) {
@@ -7,17 +7,23 @@ import org.poo.commandPattern.Command;
 import org.poo.data.Account;
 import org.poo.data.Commerciant;
 import org.poo.data.Operation;
-import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
 import org.poo.operationTypes.CardPaymentOperation;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.UserDirectory;
 
-import java.util.*;
+import java.util.List;
+import java.util.Map;
 
 public class SpendingReport implements Command {
+    private final AccountRegistry accountRegistry;
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
 
-    public SpendingReport(final ObjectMapper objectMapper, final ArrayNode output) {
+    public SpendingReport(final AccountRegistry accountRegistry,
+                          final ObjectMapper objectMapper, final OutputSink output) {
+        this.accountRegistry = accountRegistry;
         this.objectMapper = objectMapper;
         this.output = output;
     }
@@ -30,26 +36,14 @@ public class SpendingReport implements Command {
      * to a savings acc
      * I also do a sum for each commerciant
      * and then sorting commerciants by those sums, thats it
-     * @param users - list of users
+     * @param users - the user directory
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
-        Account targetAccount = null;
-
         // Finding the acc
-        for (User user : users) {
-            for (Account account : user.getAccounts()) {
-                if (account.getIban().equals(command.getAccount())) {
-                    targetAccount = account;
-                    break;
-                }
-            }
-            if (targetAccount != null) {
-                break;
-            }
-        }
+        Account targetAccount = accountRegistry.findAccount(command.getAccount());
 
         // Acc nonexistent err
         if (targetAccount == null) {
@@ -81,13 +75,11 @@ public class SpendingReport implements Command {
         }
 
         ArrayNode transactionsOutput = objectMapper.createArrayNode();
-        Map<String, Double> commerciantTotals = new HashMap<>();
 
-        // Iterating to the operations of the acc
-        for (Operation operation : targetAccount.getOperations()) {
-            if (operation.getTimestamp() >= command.getStartTimestamp()
-                    && operation.getTimestamp() <= command.getEndTimestamp()
-                    && operation.getOperationType().equals("cardPayment")) {
+        // Iterating to the operations of the acc (only the ones in the window)
+        for (Operation operation : targetAccount.getOperationsBetween(
+                command.getStartTimestamp(), command.getEndTimestamp())) {
+            if (operation.getOperationType().equals("cardPayment")) {
 
                 CardPaymentOperation cardPayment = (CardPaymentOperation) operation;
 
@@ -98,22 +90,17 @@ public class SpendingReport implements Command {
                 transactionNode.put("amount", cardPayment.getAmount());
                 transactionNode.put("commerciant", cardPayment.getCommerciant());
                 transactionsOutput.add(transactionNode);
-
-                // Summing up total per commerciant
-                commerciantTotals.put(cardPayment.getCommerciant(),
-                        commerciantTotals.getOrDefault(cardPayment.getCommerciant(), 0.0)
-                                + cardPayment.getAmount());
             }
         }
 
-        // Sorting the commerciants
-        List<Map.Entry<String, Double>> sortedCommerciants =
-                new ArrayList<>(commerciantTotals.entrySet());
-        sortedCommerciants.sort(Map.Entry.comparingByKey());
+        // Total per commerciant, already sorted by name
+        // (from the running totals of the account, no second pass over the operations)
+        Map<String, Double> commerciantTotals = targetAccount.getSpendingLedger()
+                .totalsBetween(command.getStartTimestamp(), command.getEndTimestamp());
 
         // The list of commerciants
         ArrayNode commerciantsOutput = objectMapper.createArrayNode();
-        for (Map.Entry<String, Double> entry : sortedCommerciants) {
+        for (Map.Entry<String, Double> entry : commerciantTotals.entrySet()) {
             ObjectNode commerciantNode = objectMapper.createObjectNode();
             commerciantNode.put("commerciant", entry.getKey());
             commerciantNode.put("total", entry.getValue());
@@ -8,15 +8,17 @@ import org.poo.currencyExchange.ExchangeRateManager;
 import org.poo.data.Account;
 import org.poo.data.Commerciant;
 import org.poo.data.Operation;
-import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
 import org.poo.operationTypes.SplitCustomPaymentOperation;
 import org.poo.operationTypes.SplitEqualPaymentOperation;
+import org.poo.registry.AccountRegistry;
 import org.poo.splitManager.SplitPaymentManager;
 import org.poo.splitManager.SplitPaymentState;
 import org.poo.splitStrategy.CustomSplitPaymentStrategy;
 import org.poo.splitStrategy.EqualSplitPaymentStrategy;
 import org.poo.splitStrategy.SplitPaymentStrategy;
+import org.poo.registry.UserDirectory;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -32,15 +34,21 @@ import java.util.stream.Collectors;
  */
 public class SplitPaymentCommand implements Command {
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
     private final ExchangeRateManager exchangeRateManager;
+    private final AccountRegistry accountRegistry;
+    private final SplitPaymentManager splitPaymentManager;
 
     public SplitPaymentCommand(final ObjectMapper objectMapper,
-                               final ArrayNode output,
-                               final ExchangeRateManager exchangeRateManager) {
+                               final OutputSink output,
+                               final ExchangeRateManager exchangeRateManager,
+                               final AccountRegistry accountRegistry,
+                               final SplitPaymentManager splitPaymentManager) {
         this.objectMapper = objectMapper;
         this.output = output;
         this.exchangeRateManager = exchangeRateManager;
+        this.accountRegistry = accountRegistry;
+        this.splitPaymentManager = splitPaymentManager;
     }
 
     /***
@@ -48,12 +56,12 @@ public class SplitPaymentCommand implements Command {
      * The payment can be split equally or custom.
      * The split is calculated based on the amount provided for each account.
      * If the account doesn't exist, an error is added to the output.
-     * @param users - list of users
+     * @param users - the user directory
      * @param commerciants
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
         // 1) Find the accounts
         List<String> ibans = command.getAccounts();
@@ -63,7 +71,7 @@ public class SplitPaymentCommand implements Command {
             return;
         }
 
-        List<Account> involvedAccounts = findAccounts(ibans, users);
+        List<Account> involvedAccounts = findAccounts(ibans);
         if (involvedAccounts.size() != ibans.size()) {
             generateOutput("User not found", command.getTimestamp());
             return;
@@ -120,13 +128,13 @@ public class SplitPaymentCommand implements Command {
         // 5) Create a SplitPaymentState and add it to the manager
         SplitPaymentState state = new SplitPaymentState(
                 splitType,
-                new HashSet<>(involvedAccounts),
+                new LinkedHashSet<>(involvedAccounts),
                 splitMap,
                 pendingOp,
                 command.getTimestamp()
         );
 
-        SplitPaymentManager manager = SplitPaymentManager.getInstance();
+        SplitPaymentManager manager = splitPaymentManager;
         manager.addSplit(state);
 
         // 6) Mark pending on each involved account
@@ -142,11 +150,10 @@ public class SplitPaymentCommand implements Command {
         return new EqualSplitPaymentStrategy();
     }
 
-    private List<Account> findAccounts(final List<String> ibans, final List<User> users) {
+    private List<Account> findAccounts(final List<String> ibans) {
         return ibans.stream()
-                .flatMap(iban -> users.stream()
-                        .flatMap(u -> u.getAccounts().stream())
-                        .filter(acc -> acc.getIban().equals(iban)))
+                .map(accountRegistry::findAccount)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
@@ -1,16 +1,21 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.commandPattern.Command;
+import org.poo.currencyExchange.Currency;
 import org.poo.currencyExchange.ExchangeRateManager;
 import org.poo.data.Account;
 import org.poo.data.Commerciant;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
 import org.poo.operationTypes.FailOperation;
 import org.poo.operationTypes.UpgradePlanOperation;
+import org.poo.registry.AccountLocks;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.UserDirectory;
+import org.poo.servicePlan.ServicePlan;
 
 import java.util.List;
 
@@ -22,47 +27,48 @@ public class UpgradePlanCommand implements Command {
     private static final double UPGRADE_FEE_DIRECT_TO_GOLD = 350.0;
 
     private final ExchangeRateManager exchangeRateManager;
+    private final AccountRegistry accountRegistry;
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
+    private final AccountLocks accountLocks;
 
     public UpgradePlanCommand(final ExchangeRateManager exchangeRateManager,
-                              final ObjectMapper objectMapper, final ArrayNode output) {
+                              final AccountRegistry accountRegistry,
+                              final ObjectMapper objectMapper, final OutputSink output,
+                              final AccountLocks accountLocks) {
         this.exchangeRateManager = exchangeRateManager;
+        this.accountRegistry = accountRegistry;
         this.objectMapper = objectMapper;
         this.output = output;
+        this.accountLocks = accountLocks;
     }
 
     /***
      * Upgrades the plan of a user.
      * If the account is not found, an error is added to the output
      * If the account does not have enough funds, an error is added to the output
-     * @param users - list of users
+     * @param users - the user directory
      * @param commerciants
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
+        try (AccountLocks.Held held = accountLocks.lockAll(command.getAccount())) {
+            executeLocked(users, commerciants, command);
+        }
+    }
+
+    // the command itself, run while holding the locks of the accounts it changes
+    private void executeLocked(final UserDirectory users, final List<Commerciant> commerciants,
+                               final CommandInput command) {
         ObjectNode outputNode = objectMapper.createObjectNode();
         String newPlanType = command.getNewPlanType();
         String accountIban = command.getAccount();
 
-        // Find user and account
-        User upgradingUser = null;
-        Account targetAccount = null;
-
-        for (User user : users) {
-            for (Account account : user.getAccounts()) {
-                if (account.getIban().equals(accountIban)) {
-                    upgradingUser = user;
-                    targetAccount = account;
-                    break;
-                }
-            }
-            if (upgradingUser != null) {
-                break;
-            }
-        }
+        // Find user (the owner of the account) and account
+        Account targetAccount = accountRegistry.findAccount(accountIban);
+        User upgradingUser = accountRegistry.findOwner(accountIban);
 
         if (upgradingUser == null) {
             outputNode.put("command", "upgradePlan");
@@ -87,35 +93,36 @@ public class UpgradePlanCommand implements Command {
         }
 
         // Check for downgrade attempt or invalid plan
-        String currentPlan = upgradingUser.getCurrentPlanName();
+        ServicePlan currentPlan = upgradingUser.getPlan();
+        ServicePlan newPlan = ServicePlan.fromName(newPlanType);
 
-        if (currentPlan.equalsIgnoreCase(newPlanType)) {
+        if (currentPlan == newPlan) {
             FailOperation failOperation = new FailOperation(
                     command.getTimestamp(),
                     "The user already has the silver plan."
             );
             targetAccount.addOperation(failOperation);
-            System.out.println("Am intrat aici");
             return;
         }
 
         // Determine upgrade fee in RON
-        double upgradeFeeRON = determineUpgradeFee(currentPlan, newPlanType);
+        double upgradeFeeRON = determineUpgradeFee(currentPlan, newPlan);
 
         // Convert fee to account currency if necessary
         double feeInAccountCurrency = upgradeFeeRON;
-        if (!targetAccount.getCurrency().equalsIgnoreCase("RON")) {
+        Currency ron = exchangeRateManager.getBaseCurrency();
+        if (targetAccount.getCurrencyHandle() != ron) {
             double exchangeRate = exchangeRateManager.
-                    getExchangeRate("RON", targetAccount.getCurrency());
-            if (exchangeRate != -1) {
+                    getExchangeRate(ron, targetAccount.getCurrencyHandle());
+            if (!Double.isNaN(exchangeRate)) {
                 feeInAccountCurrency = upgradeFeeRON * exchangeRate;
             } else {
                 return;
             }
         }
 
-        // Check if the account has sufficient funds
-        if (targetAccount.getBalance() < feeInAccountCurrency) {
+        // Deduct fee, only if there are enough funds (check + debit in one CAS)
+        if (!targetAccount.tryRemoveFunds(feeInAccountCurrency)) {
             FailOperation failOperation = new FailOperation(
                     command.getTimestamp(),
                     "Insufficient funds"
@@ -124,9 +131,8 @@ public class UpgradePlanCommand implements Command {
             return;
         }
 
-        // Deduct fee and complete the upgrade
+        // Complete the upgrade
         upgradingUser.upgradePlan(newPlanType);
-        targetAccount.removeFunds(feeInAccountCurrency);
 
         // Add upgrade operation to the account
         UpgradePlanOperation upgradeOperation = new UpgradePlanOperation(
@@ -141,22 +147,19 @@ public class UpgradePlanCommand implements Command {
     /**
      * Determines the upgrade fee based on the user's current plan and the new plan.
      *
-     * @param currentPlan The current plan name.
-     * @param newPlanType The new plan name.
+     * @param currentPlan The current plan.
+     * @param newPlan The new plan (null if there is no such plan).
      * @return The upgrade fee in RON.
      */
-    private double determineUpgradeFee(final String currentPlan, final String newPlanType) {
-        // Normalize plan names
-        String normalizedCurrentPlan = currentPlan.replace("PlanDecorator", "").toLowerCase();
-        String normalizedNewPlanType = newPlanType.toLowerCase();
+    private double determineUpgradeFee(final ServicePlan currentPlan, final ServicePlan newPlan) {
+        boolean fromBasic = currentPlan == ServicePlan.STANDARD
+                || currentPlan == ServicePlan.STUDENT;
 
-        if ((normalizedCurrentPlan.equals("standard") || normalizedCurrentPlan.equals("student"))
-                && normalizedNewPlanType.equals("silver")) {
+        if (fromBasic && newPlan == ServicePlan.SILVER) {
             return UPGRADE_FEE_TO_SILVER; // used to be 100.0
-        } else if (normalizedCurrentPlan.equals("silver") && normalizedNewPlanType.equals("gold")) {
+        } else if (currentPlan == ServicePlan.SILVER && newPlan == ServicePlan.GOLD) {
             return UPGRADE_FEE_SILVER_TO_GOLD; // used to be 250.0
-        } else if ((normalizedCurrentPlan.equals("standard") || normalizedCurrentPlan.equals("student"))
-                && normalizedNewPlanType.equals("gold")) {
+        } else if (fromBasic && newPlan == ServicePlan.GOLD) {
             return UPGRADE_FEE_DIRECT_TO_GOLD; // used to be 350.0
         }
 
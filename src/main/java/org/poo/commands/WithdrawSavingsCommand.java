@@ -1,63 +1,68 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.commandPattern.Command;
+import org.poo.currencyExchange.Currency;
 import org.poo.currencyExchange.ExchangeRateManager;
 import org.poo.data.Account;
 import org.poo.data.Commerciant;
 import org.poo.data.User;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.OutputSink;
 import org.poo.operationTypes.FailOperation;
 import org.poo.operationTypes.WithdrawSavingsOperation;
+import org.poo.registry.AccountLocks;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.UserDirectory;
 
 import java.util.List;
 
 public class WithdrawSavingsCommand implements Command {
     private final ObjectMapper objectMapper;
-    private final ArrayNode output;
+    private final OutputSink output;
     private final ExchangeRateManager exchangeRateManager;
+    private final AccountRegistry accountRegistry;
+    private final AccountLocks accountLocks;
 
     public WithdrawSavingsCommand(final ObjectMapper objectMapper,
-                                  final ArrayNode output,
-                                  final ExchangeRateManager exchangeRateManager) {
+                                  final OutputSink output,
+                                  final ExchangeRateManager exchangeRateManager,
+                                  final AccountRegistry accountRegistry,
+                                  final AccountLocks accountLocks) {
         this.objectMapper = objectMapper;
         this.output = output;
         this.exchangeRateManager = exchangeRateManager;
+        this.accountRegistry = accountRegistry;
+        this.accountLocks = accountLocks;
     }
 
     /***
      * Withdraws money from a savings account and deposits it into a classic account
      * If the account is not found, an error is added to the output
-     * @param users - list of users
+     * @param users - the user directory
      * @param commerciants
      * @param command - the command to be executed
      */
     @Override
-    public void execute(final List<User> users, final List<Commerciant> commerciants,
+    public void execute(final UserDirectory users, final List<Commerciant> commerciants,
                         final CommandInput command) {
+        try (AccountLocks.Held held = accountLocks.lockAll(ownerIbans(command.getAccount()))) {
+            executeLocked(users, commerciants, command);
+        }
+    }
+
+    // the command itself, run while holding the locks of the accounts it changes
+    private void executeLocked(final UserDirectory users, final List<Commerciant> commerciants,
+                               final CommandInput command) {
         ObjectNode commandOutput = objectMapper.createObjectNode();
         commandOutput.put("command", "withdrawSavings");
         commandOutput.put("timestamp", command.getTimestamp());
 
         // Locate the user and the savings account
-        Account savingsAccount = null;
+        Account savingsAccount = accountRegistry.findAccount(command.getAccount());
+        User currentUser = accountRegistry.findOwner(command.getAccount());
         Account classicAccount = null;
-        User currentUser = null;
-
-        for (User user : users) {
-            for (Account account : user.getAccounts()) {
-                if (account.getIban().equals(command.getAccount())) {
-                    savingsAccount = account;
-                    currentUser = user;
-                    break;
-                }
-            }
-            if (savingsAccount != null) {
-                break;
-            }
-        }
 
         if (currentUser == null) {
             // If user not found
@@ -88,9 +93,10 @@ public class WithdrawSavingsCommand implements Command {
         }
 
         // Find the first classic account with the specified currency
+        Currency targetCurrency = exchangeRateManager.currencyOf(command.getCurrency());
         for (Account account : currentUser.getAccounts()) {
             if (account.getAccountType().equals("classic")
-                    && account.getCurrency().equals(command.getCurrency())) {
+                    && account.getCurrencyHandle() == targetCurrency) {
                 classicAccount = account;
                 break;
             }
@@ -108,8 +114,8 @@ public class WithdrawSavingsCommand implements Command {
         // Calculate exchange rate
         double exchangeRate
                 = exchangeRateManager.
-                getExchangeRate(savingsAccount.getCurrency(), command.getCurrency());
-        if (exchangeRate == -1) {
+                getExchangeRate(savingsAccount.getCurrencyHandle(), targetCurrency);
+        if (Double.isNaN(exchangeRate)) {
             ObjectNode errorOutput = objectMapper.createObjectNode();
             errorOutput.put("description", "Exchange rate not found.");
             commandOutput.set("output", errorOutput);
@@ -120,7 +126,8 @@ public class WithdrawSavingsCommand implements Command {
         // Convert the amount
         double convertedAmount = command.getAmount() / exchangeRate;
 
-        if (savingsAccount.getBalance() < convertedAmount) {
+        // the check and the withdrawal are one atomic step
+        if (!savingsAccount.tryRemoveFunds(convertedAmount)) {
             // If insufficient funds
             ObjectNode errorOutput = objectMapper.createObjectNode();
             errorOutput.put("description", "Insufficient funds");
@@ -129,8 +136,7 @@ public class WithdrawSavingsCommand implements Command {
             return;
         }
 
-        // Perform the withdrawal and deposit
-        savingsAccount.removeFunds(convertedAmount);
+        // Perform the deposit
         classicAccount.addFunds(command.getAmount());
 
         // Add operations to the accounts
@@ -157,4 +163,18 @@ public class WithdrawSavingsCommand implements Command {
         );
         classicAccount.addOperation(classicDeposit);
     }
+
+    // the savings account and every account of its owner (the money goes to one of them)
+    private String[] ownerIbans(final String savingsIban) {
+        User owner = accountRegistry.findOwner(savingsIban);
+        if (owner == null) {
+            return new String[] {savingsIban};
+        }
+        String[] ibans = new String[owner.getAccounts().size() + 1];
+        ibans[0] = savingsIban;
+        for (int i = 0; i < owner.getAccounts().size(); i++) {
+            ibans[i + 1] = owner.getAccounts().get(i).getIban();
+        }
+        return ibans;
+    }
 }
@@ -0,0 +1,143 @@
+package org.poo.context;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.cashbackStrategy.CashbackRules;
+import org.poo.cashbackStrategy.CategoryRuleTable;
+import org.poo.currencyExchange.ExchangeRateManager;
+import org.poo.fileio.OutputSink;
+import org.poo.registry.AccountLocks;
+import org.poo.registry.AccountRegistry;
+import org.poo.registry.CardRegistry;
+import org.poo.registry.MerchantDirectory;
+import org.poo.registry.UserDirectory;
+import org.poo.splitManager.SplitPaymentManager;
+import org.poo.utils.IdGenerator;
+
+/**
+ * Everything one bank run (one input file) works with:
+ *  - the users, the commerciants and the exchange rates read from the input
+ *  - the account and card indexes, the balance locks, the pending split payments
+ *    and the seeded IBAN / card number generator, all created empty for the run
+ *  - where the results of the commands go
+ *  - the cashback evaluators (over the rules from the configuration, shared by all runs)
+ *  - how long a split payment waits for its acceptances (0 -> forever)
+ * Nothing here is shared with another run, so several runs can go in parallel
+ */
+public final class BankContext {
+    private final UserDirectory users;
+    private final MerchantDirectory merchants;
+    private final ExchangeRateManager exchangeRateManager;
+    private final AccountRegistry accountRegistry;
+    private final CardRegistry cardRegistry;
+    private final AccountLocks accountLocks;
+    private final SplitPaymentManager splitPaymentManager;
+    private final IdGenerator idGenerator;
+    private final CashbackRules cashbackRules;
+    private final ObjectMapper objectMapper;
+    private final OutputSink output;
+
+    public BankContext(final UserDirectory users, final MerchantDirectory merchants,
+                       final ExchangeRateManager exchangeRateManager,
+                       final ObjectMapper objectMapper, final OutputSink output,
+                       final int splitTtl) {
+        this.users = users;
+        this.merchants = merchants;
+        this.exchangeRateManager = exchangeRateManager;
+        this.accountRegistry = new AccountRegistry();
+        this.cardRegistry = new CardRegistry();
+        this.accountLocks = new AccountLocks();
+        this.splitPaymentManager = new SplitPaymentManager(accountLocks, splitTtl);
+        this.idGenerator = new IdGenerator();
+        this.cashbackRules = new CashbackRules(CategoryRuleTable.defaults());
+        this.objectMapper = objectMapper;
+        this.output = output;
+    }
+
+    /***
+     * getter for the users of the run
+     * @return
+     */
+    public UserDirectory getUsers() {
+        return users;
+    }
+
+    /***
+     * getter for the commerciants of the run
+     * @return
+     */
+    public MerchantDirectory getMerchants() {
+        return merchants;
+    }
+
+    /***
+     * getter for the exchange rates of the run
+     * @return
+     */
+    public ExchangeRateManager getExchangeRateManager() {
+        return exchangeRateManager;
+    }
+
+    /***
+     * getter for the index of the accounts (by IBAN)
+     * @return
+     */
+    public AccountRegistry getAccountRegistry() {
+        return accountRegistry;
+    }
+
+    /***
+     * getter for the index of the cards (by card number)
+     * @return
+     */
+    public CardRegistry getCardRegistry() {
+        return cardRegistry;
+    }
+
+    /***
+     * getter for the striped locks of the account balances
+     * @return
+     */
+    public AccountLocks getAccountLocks() {
+        return accountLocks;
+    }
+
+    /***
+     * getter for the pending split payments
+     * @return
+     */
+    public SplitPaymentManager getSplitPaymentManager() {
+        return splitPaymentManager;
+    }
+
+    /***
+     * getter for the IBAN / card number generator
+     * @return
+     */
+    public IdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    /***
+     * getter for the cashback evaluators
+     * @return
+     */
+    public CashbackRules getCashbackRules() {
+        return cashbackRules;
+    }
+
+    /***
+     * getter for the object mapper used to build the results
+     * @return
+     */
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /***
+     * getter for where the results of the commands go
+     * @return
+     */
+    public OutputSink getOutput() {
+        return output;
+    }
+}
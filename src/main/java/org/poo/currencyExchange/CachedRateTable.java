@@ -0,0 +1,107 @@
+package org.poo.currencyExchange;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bounded memoizing cache in front of the currency graph
+// for when there are many currencies but only a few pairs are really used,
+// so a full matrix would be a waste
+//  - the search in the graph runs only the first time a pair is asked for,
+//    after that the rate comes from the cache (as long as the pair stays cached)
+//  - when the cache is full, the least recently used pair is dropped
+//  - hits, misses and evictions are counted, so the capacity can be tuned
+//    (evictions > 0 means some pairs had to be searched again)
+//  - synchronized, the commands of a run can ask for rates from several threads
+public final class CachedRateTable implements RateTable {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final CurrencyGraph currencyGraph;
+    private final int capacity;
+    private final Map<Long, Double> cache;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public CachedRateTable(final CurrencyGraph currencyGraph, final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+        this.currencyGraph = currencyGraph;
+        this.capacity = capacity;
+        // access order = iteration goes from the least to the most recently used pair
+        this.cache = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, Double> eldest) {
+                if (size() > CachedRateTable.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /***
+     * The rate from the cache, or from the graph if the pair is not cached yet
+     * @param from - the currency we are converting from
+     * @param to - the currency we are converting to
+     * @return - the exchange rate or NO_RATE (NaN)
+     */
+    @Override
+    public synchronized double getRate(final Currency from, final Currency to) {
+        // the two ids packed in one key, no pair object needed
+        long key = ((long) from.getId() << Integer.SIZE) | to.getId();
+
+        Double rate = cache.get(key);
+        if (rate != null) {
+            hits++;
+            return rate;
+        }
+
+        misses++;
+        double computed = currencyGraph.getExchangeRate(from.getCode(), to.getCode());
+        cache.put(key, computed);
+        return computed;
+    }
+
+    /***
+     * getter for the number of lookups answered from the cache
+     * @return - the hit count
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /***
+     * getter for the number of lookups that had to search the graph
+     * @return - the miss count
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /***
+     * getter for the number of pairs dropped because the cache was full
+     * @return - the eviction count
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /***
+     * getter for the maximum number of cached pairs
+     * @return - the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /***
+     * getter for the number of pairs cached right now
+     * @return - the size of the cache
+     */
+    public synchronized int size() {
+        return cache.size();
+    }
+}
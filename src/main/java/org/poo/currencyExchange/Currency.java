@@ -0,0 +1,41 @@
+package org.poo.currencyExchange;
+
+// Interned handle for a currency code
+// every code gets exactly one Currency object (from the CurrencyRegistry),
+// so two currencies are the same currency only if they are the same object
+// and comparing them is just a reference check, no string compare needed
+// the id is a small number that is used as an index in the rate matrix
+public final class Currency {
+    private final int id;
+    private final String code;
+
+    Currency(final int id, final String code) {
+        this.id = id;
+        this.code = code;
+    }
+
+    /***
+     * Getter for the id of the currency
+     * @return - the index of the currency in the registry
+     */
+    public int getId() {
+        return id;
+    }
+
+    /***
+     * Getter for the code of the currency
+     * @return - the code as a string (e.g. "RON")
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /***
+     * The code of the currency, so it can be printed directly
+     * @return - the code as a string
+     */
+    @Override
+    public String toString() {
+        return code;
+    }
+}
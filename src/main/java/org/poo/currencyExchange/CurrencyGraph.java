@@ -1,9 +1,13 @@
 package org.poo.currencyExchange;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.Set;
 
 public class CurrencyGraph {
     private Map<String, Map<String, Double>> graph = new HashMap<>();
@@ -20,14 +24,21 @@ public class CurrencyGraph {
         graph.get(from).put(to, rate);
     }
 
+    /***
+     * getter for all the currencies that appear in the exchange rates
+     * @return - the currencies of the graph
+     */
+    public Set<String> getCurrencies() {
+        return Collections.unmodifiableSet(graph.keySet());
+    }
+
     /***
      * Method to find the exchange rate between two currencies
      * Using Dijkstra's algorithm to find the exchange rate
-     * it's an algorithm that finds the shortest path between two nodes in a graph
-     * for bibliography check README.md (i watched some yt vids)
+     * (same search as the one below, but it stops as soon as "to" leaves the queue)
      * @param from - the currency we are converting from
      * @param to - the currency we are converting to
-     * @return - the calculated exchange rate
+     * @return - the calculated exchange rate or NO_RATE (NaN) if there is no road
      */
     public double getExchangeRate(final String from, final String to) {
 
@@ -62,7 +73,77 @@ public class CurrencyGraph {
             }
         }
 
-        return -1; // No correct road beetwen the two currencies
+        return ExchangeRateManager.NO_RATE; // No correct road beetwen the two currencies
+    }
+
+    /***
+     * Method to find the exchange rates from one currency to all the others
+     * Using Dijkstra's algorithm to find the exchange rates
+     * it's an algorithm that finds the shortest path between two nodes in a graph
+     * for bibliography check README.md (i watched some yt vids)
+     * The rate of a currency is the one it has the first time it leaves the queue,
+     * so it is the same rate a search stopping at that currency would give
+     * The search stops once every reachable currency got its rate
+     * @param from - the currency we are converting from
+     * @return - the rate for every currency reachable from "from" (from itself is 1.0)
+     */
+    public Map<String, Double> getExchangeRatesFrom(final String from) {
+        Map<String, Double> rates = new HashMap<>();
+        int reachable = countReachable(from);
+
+        // priority queue for finding the best rate
+        PriorityQueue<ExchangeNode> pq =
+                new PriorityQueue<>(Comparator.comparingDouble(node -> node.getRate()));
+        pq.add(new ExchangeNode(from, 1.0));
+
+        Map<String, Double> visited = new HashMap<>();
+        visited.put(from, 1.0);
+
+        while (!pq.isEmpty() && rates.size() < reachable) {
+            ExchangeNode current = pq.poll();
+
+            // First time out of the queue = we found the rate of this currency
+            rates.putIfAbsent(current.getCurrency(), current.getRate());
+
+            if (graph.containsKey(current.getCurrency())) {
+                for (Map.Entry<String, Double> neighbor
+                        : graph.get(current.getCurrency()).entrySet()) {
+                    double newRate = current.getRate() * neighbor.getValue();
+
+                    // if better rate, add to the queue
+                    if (!visited.containsKey(neighbor.getKey())
+                            || newRate < visited.get(neighbor.getKey())) {
+                        visited.put(neighbor.getKey(), newRate);
+                        pq.add(new ExchangeNode(neighbor.getKey(), newRate));
+                    }
+                }
+            }
+        }
+
+        return rates;
     }
 
+    /***
+     * Counts the currencies that can be reached from a currency (itself included)
+     * simple BFS over the graph, used to know when the search above is done
+     * @param from - the currency we start from
+     * @return - how many currencies are reachable
+     */
+    private int countReachable(final String from) {
+        Set<String> seen = new HashSet<>();
+        ArrayDeque<String> queue = new ArrayDeque<>();
+        seen.add(from);
+        queue.add(from);
+
+        while (!queue.isEmpty()) {
+            String current = queue.poll();
+            for (String neighbor : graph.getOrDefault(current, Map.of()).keySet()) {
+                if (seen.add(neighbor)) {
+                    queue.add(neighbor);
+                }
+            }
+        }
+
+        return seen.size();
+    }
 }
@@ -0,0 +1,56 @@
+package org.poo.currencyExchange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Interns every currency code into a Currency handle with a small id
+// the codes are upper-cased first, so "ron" and "RON" are the same currency
+// (this is the only place where currency codes are compared as strings)
+public final class CurrencyRegistry {
+    private final Map<String, Currency> currenciesByCode;
+    private final List<Currency> currencies;
+
+    public CurrencyRegistry() {
+        this.currenciesByCode = new ConcurrentHashMap<>();
+        this.currencies = new ArrayList<>();
+    }
+
+    /***
+     * Gives the handle of a currency code, creating it the first time
+     * the code is seen
+     * @param code - the code of the currency
+     * @return - the one and only handle for this code
+     */
+    public Currency intern(final String code) {
+        String normalized = code.toUpperCase(Locale.ROOT);
+        Currency currency = currenciesByCode.get(normalized);
+        if (currency != null) {
+            return currency;
+        }
+
+        // new code, can happen while a new rate version is being published
+        synchronized (currencies) {
+            currency = currenciesByCode.get(normalized);
+            if (currency == null) {
+                currency = new Currency(currencies.size(), normalized);
+                currencies.add(currency);
+                currenciesByCode.put(normalized, currency);
+            }
+            return currency;
+        }
+    }
+
+    /***
+     * Getter for the number of currencies interned so far
+     * the ids of the currencies are 0 .. size - 1
+     * @return - how many currencies we know
+     */
+    public int size() {
+        synchronized (currencies) {
+            return currencies.size();
+        }
+    }
+}
@@ -1,29 +1,198 @@
 package org.poo.currencyExchange;
 
+import org.poo.data.Money;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class ExchangeRateManager {
-    private CurrencyGraph currencyGraph;
+    // Marks a pair of currencies with no conversion path between them
+    public static final double NO_RATE = Double.NaN;
+    // The currency the bank works in (fees, commissions, limits)
+    private static final String BASE_CURRENCY = "RON";
+
+    private final CurrencyRegistry currencyRegistry;
+    private final Currency baseCurrency;
+    private final int cacheCapacity;
+    // the version every conversion uses right now, swapped atomically on publish
+    // (older versions are not kept, every conversion is done with the rates of its time)
+    private final AtomicReference<RateSnapshot> current;
 
     // constructor
     // creates a new CurrencyGraph and adds the exchange rates to it
+    // then computes the rate for every pair of currencies once (full matrix)
     public ExchangeRateManager(final List<ExchangeRate> exchangeRates) {
-        this.currencyGraph = new CurrencyGraph();
+        this(exchangeRates, 0);
+    }
+
+    // constructor for when a full matrix is too big
+    // with cacheCapacity > 0 the rates are searched in the graph when first needed
+    // and kept in a bounded cache of at most cacheCapacity pairs
+    // with cacheCapacity == 0 it is the same as the constructor above
+    public ExchangeRateManager(final List<ExchangeRate> exchangeRates,
+                               final int cacheCapacity) {
+        this.currencyRegistry = new CurrencyRegistry();
+        this.baseCurrency = currencyRegistry.intern(BASE_CURRENCY);
+        this.cacheCapacity = cacheCapacity;
+
+        RateSnapshot first = new RateSnapshot(1, 0, exchangeRates, buildTable(exchangeRates));
+        this.current = new AtomicReference<>(first);
+    }
+
+    /***
+     * Builds the rate table for a list of rates
+     * the graph is built from scratch, so the table never shares state
+     * with the tables of older versions
+     * @param exchangeRates - the rates of the version
+     * @return - the matrix or the cache, depending on cacheCapacity
+     */
+    private RateTable buildTable(final List<ExchangeRate> exchangeRates) {
+        CurrencyGraph currencyGraph = new CurrencyGraph();
         for (ExchangeRate rate : exchangeRates) {
-            currencyGraph.addExchangeRate(rate.getFrom(), rate.getTo(), rate.getRate());
-            currencyGraph.addExchangeRate(rate.getTo(), rate.getFrom(), 1.0 / rate.getRate());
+            String from = currencyRegistry.intern(rate.getFrom()).getCode();
+            String to = currencyRegistry.intern(rate.getTo()).getCode();
+            currencyGraph.addExchangeRate(from, to, rate.getRate());
+            currencyGraph.addExchangeRate(to, from, 1.0 / rate.getRate());
+        }
+
+        if (cacheCapacity > 0) {
+            return new CachedRateTable(currencyGraph, cacheCapacity);
+        }
+        return new MatrixRateTable(currencyGraph, currencyRegistry);
+    }
+
+    /***
+     * Publishes a new version of the rates, starting from the given timestamp
+     * The new rates replace the current rates for the same pair of currencies
+     * (in either direction), the other pairs are kept
+     * The table is built before the swap, so conversions never wait for it
+     * and never see a half built table
+     * The previous version is dropped once no conversion uses it any more
+     * @param updatedRates - the rates that changed
+     * @param effectiveFrom - the timestamp from which the new rates apply
+     * @return - the published version
+     */
+    public synchronized RateSnapshot publish(final List<ExchangeRate> updatedRates,
+                                             final int effectiveFrom) {
+        RateSnapshot previous = current.get();
+
+        List<ExchangeRate> merged = new ArrayList<>();
+        for (ExchangeRate rate : previous.getRates()) {
+            if (!isUpdated(rate, updatedRates)) {
+                merged.add(rate);
+            }
         }
+        merged.addAll(updatedRates);
+
+        RateSnapshot next = new RateSnapshot(previous.getVersion() + 1, effectiveFrom,
+                merged, buildTable(merged));
+        current.set(next);
+        return next;
+    }
+
+    /***
+     * Checks if a rate is replaced by one of the updated rates
+     * @param rate - the old rate
+     * @param updatedRates - the new rates
+     * @return - true if one of the new rates is for the same pair of currencies
+     */
+    private boolean isUpdated(final ExchangeRate rate, final List<ExchangeRate> updatedRates) {
+        Currency from = currencyRegistry.intern(rate.getFrom());
+        Currency to = currencyRegistry.intern(rate.getTo());
+        for (ExchangeRate updated : updatedRates) {
+            Currency updatedFrom = currencyRegistry.intern(updated.getFrom());
+            Currency updatedTo = currencyRegistry.intern(updated.getTo());
+            if ((updatedFrom == from && updatedTo == to)
+                    || (updatedFrom == to && updatedTo == from)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /***
+     * getter for the version every conversion uses right now
+     * @return - the current snapshot
+     */
+    public RateSnapshot getCurrentSnapshot() {
+        return current.get();
+    }
+
+    /***
+     * getter for the table the rates are taken from right now
+     * (a CachedRateTable has the hit/miss counters)
+     * @return - the rate table
+     */
+    public RateTable getRateTable() {
+        return current.get().getRateTable();
+    }
+
+    /***
+     * Gives the handle of a currency code
+     * codes that are not in the exchange rates still get a handle,
+     * they just can't be converted to anything else
+     * @param code - the code of the currency (e.g. from the input)
+     * @return - the interned currency
+     */
+    public Currency currencyOf(final String code) {
+        return currencyRegistry.intern(code);
+    }
+
+    /***
+     * Getter for the currency the bank works in (RON)
+     * @return - the base currency
+     */
+    public Currency getBaseCurrency() {
+        return baseCurrency;
     }
 
     /***
      * getter for the exchange rate of the two currencies
-     * given from the graph
-     * basically getter of a getter
+     * taken from the current version of the rate table (matrix or cache)
+     * @param from - the currency we are converting from
+     * @param to - the currency we are converting to
+     * @return - the exchange rate desired or NO_RATE (NaN) if there is no way
+     * to convert between the two currencies
+     */
+    public double getExchangeRate(final Currency from, final Currency to) {
+        if (from == to) {
+            // a currency is always convertible to itself, even if we don't know it
+            return 1.0;
+        }
+        return current.get().getRateTable().getRate(from, to);
+    }
+
+    /***
+     * Same as above, but with the codes of the currencies
      * @param fromCurrency - the currency we are converting from
      * @param toCurrency - the currency we are converting to
-     * @return - the exchange rate desired
+     * @return - the exchange rate desired or NO_RATE (NaN)
      */
     public double getExchangeRate(final String fromCurrency, final String toCurrency) {
-        return currencyGraph.getExchangeRate(fromCurrency, toCurrency);
+        return getExchangeRate(currencyOf(fromCurrency), currencyOf(toCurrency));
+    }
+
+    /***
+     * Converts an amount to minor units of another currency (see Money),
+     * exact product rounded once, so the result can go straight into a balance
+     * @param amount - the amount in the currency we are converting from
+     * @param from - the currency we are converting from
+     * @param to - the currency we are converting to
+     * @return - the amount in minor units of the target currency,
+     * or Money.NO_AMOUNT if there is no rate
+     */
+    public long convertToMinor(final double amount, final Currency from, final Currency to) {
+        return Money.convertToMinor(amount, getExchangeRate(from, to));
+    }
+
+    /***
+     * Checks if there is a way to convert between the two currencies
+     * @param from - the currency we are converting from
+     * @param to - the currency we are converting to
+     * @return - true if the rate exists, false otherwise
+     */
+    public boolean hasExchangeRate(final Currency from, final Currency to) {
+        return !Double.isNaN(getExchangeRate(from, to));
     }
 }
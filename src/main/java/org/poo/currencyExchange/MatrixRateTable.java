@@ -0,0 +1,45 @@
+package org.poo.currencyExchange;
+
+import java.util.Arrays;
+import java.util.Map;
+
+// Dense currency x currency matrix with every rate computed up front
+// the rates never change during a run, so every conversion after this
+// is just an array load indexed by the ids of the two currencies
+// good when there are few currencies (the matrix is size^2)
+public final class MatrixRateTable implements RateTable {
+    private final double[][] rates;
+
+    public MatrixRateTable(final CurrencyGraph currencyGraph,
+                           final CurrencyRegistry currencyRegistry) {
+        // every currency of the graph is interned at this point
+        int size = currencyRegistry.size();
+        this.rates = new double[size][size];
+        for (double[] row : rates) {
+            Arrays.fill(row, ExchangeRateManager.NO_RATE);
+        }
+
+        for (String from : currencyGraph.getCurrencies()) {
+            double[] row = rates[currencyRegistry.intern(from).getId()];
+            for (Map.Entry<String, Double> to
+                    : currencyGraph.getExchangeRatesFrom(from).entrySet()) {
+                row[currencyRegistry.intern(to.getKey()).getId()] = to.getValue();
+            }
+        }
+    }
+
+    /***
+     * The rate from the matrix
+     * currencies interned after the matrix was built have no rates
+     * @param from - the currency we are converting from
+     * @param to - the currency we are converting to
+     * @return - the exchange rate or NO_RATE (NaN)
+     */
+    @Override
+    public double getRate(final Currency from, final Currency to) {
+        if (from.getId() >= rates.length || to.getId() >= rates.length) {
+            return ExchangeRateManager.NO_RATE;
+        }
+        return rates[from.getId()][to.getId()];
+    }
+}
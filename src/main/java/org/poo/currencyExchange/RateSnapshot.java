@@ -0,0 +1,58 @@
+package org.poo.currencyExchange;
+
+import java.util.List;
+
+// One published version of the exchange rates
+// it never changes after it is built: readers that got a snapshot
+// keep seeing the same rates even if a newer version is published meanwhile
+//  - version: 1 for the rates from the input, +1 for every publish after that
+//  - effectiveFrom: the timestamp from which this version applies
+//  - rates: the rates it was built from (so the next version can update them)
+//  - rateTable: where the rates are taken from (matrix or cache)
+public final class RateSnapshot {
+    private final int version;
+    private final int effectiveFrom;
+    private final List<ExchangeRate> rates;
+    private final RateTable rateTable;
+
+    public RateSnapshot(final int version, final int effectiveFrom,
+                        final List<ExchangeRate> rates, final RateTable rateTable) {
+        this.version = version;
+        this.effectiveFrom = effectiveFrom;
+        this.rates = List.copyOf(rates);
+        this.rateTable = rateTable;
+    }
+
+    /***
+     * Getter for the version number
+     * @return - the version of the rates
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /***
+     * Getter for the timestamp from which the version applies
+     * @return - the timestamp
+     */
+    public int getEffectiveFrom() {
+        return effectiveFrom;
+    }
+
+    /***
+     * Getter for the rates the version was built from
+     * @return - read-only list of rates
+     */
+    public List<ExchangeRate> getRates() {
+        return rates;
+    }
+
+    /***
+     * Getter for the table with the rates of this version
+     * (a CachedRateTable has the hit/miss counters)
+     * @return - the rate table
+     */
+    public RateTable getRateTable() {
+        return rateTable;
+    }
+}
@@ -0,0 +1,16 @@
+package org.poo.currencyExchange;
+
+/***
+ * This is the interface for the tables the ExchangeRateManager takes rates from
+ * basically implements a method to know the rate between two currencies
+ * (a full precomputed matrix or a cache in front of the currency graph)
+ */
+public interface RateTable {
+    /***
+     * THE RATE BETWEEN TWO DIFFERENT CURRENCIES
+     * @param from - the currency we are converting from
+     * @param to - the currency we are converting to
+     * @return - the exchange rate or NO_RATE (NaN) if there is no way to convert
+     */
+    double getRate(Currency from, Currency to);
+}
@@ -1,11 +1,17 @@
 package org.poo.data;
 
+import org.poo.currencyExchange.Currency;
 import org.poo.factories.CardFactory;
+import org.poo.operationTypes.CardPaymentOperation;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 /***
  * The abstract class for the account
@@ -16,41 +22,51 @@ import java.util.Map;
  * It also has the fields and methods for the business account feature
  */
 public abstract class Account {
+    private static final int INITIAL_OPERATIONS = 16;
+
     protected String iban;
-    protected String currency;
-    protected double balance;
+    protected Currency currency;
+    // balance in minor units (see Money), every change is one atomic update;
+    // a debit is always checked in the same atomic step (tryRemoveFunds)
+    private final AtomicLong balance;
     protected List<Card> cards;
     protected List<Operation> operations;
+    // positions in operations, ordered by timestamp (same timestamp -> the order they
+    // were added in); the same as 0, 1, 2... until a split payment is accepted late
+    private int[] timeOrder;
+    // false once an operation older than the last one was added (a split payment
+    // accepted later), then the list is no longer in timestamp order
+    private boolean operationsInTimeOrder;
     private double minBalance;
     private String alias;
 
-    // Cashback-related fields
-    // Tracks number of transactions per merchant
-    private Map<String, Integer> merchantTransactionCount;
-    private Map<String, Double> spendingTotals; // Tracks total spending per category
-    private Map<String, Boolean> cashbackApplied; // Tracks if cashback was applied per category
-    private Map<String, Double> merchantSpending;
-    private Map<String, Boolean> nrOfTransactionsCashbackUsed;
+    // Cashback-related fields (primitive, nothing is boxed on a payment)
+    // Number of payments to each commerciant, indexed by the ID of the commerciant
+    private int[] merchantTransactionCounts;
+    // Card payment totals per merchant, for spending reports
+    private SpendingLedger spendingLedger;
+    // The categories whose nrOfTransactions cashback was given, one bit per category index
+    private final BitSet nrOfTransactionsCashbackUsed;
 
     // Pending operations for split payments
     private List<Operation> pendingOperations;
     private double totalSpentOnTresholdCashback;
 
     // Constructor
-    public Account(final String iban, final String currency) {
+    public Account(final String iban, final Currency currency) {
         this.iban = iban;
         this.currency = currency;
-        this.balance = 0.0;
+        this.balance = new AtomicLong(0L);
         this.cards = new ArrayList<>();
         this.operations = new ArrayList<>();
+        this.timeOrder = new int[INITIAL_OPERATIONS];
+        this.operationsInTimeOrder = true;
         this.minBalance = 0.0;
 
-        // Initialize cashback-related maps
-        this.merchantTransactionCount = new HashMap<>();
-        this.spendingTotals = new HashMap<>();
-        this.cashbackApplied = new HashMap<>();
-        this.merchantSpending = new HashMap<>();
-        this.nrOfTransactionsCashbackUsed = new HashMap<>();
+        // Initialize cashback-related counters (grown when they are first used)
+        this.merchantTransactionCounts = new int[0];
+        this.spendingLedger = new SpendingLedger();
+        this.nrOfTransactionsCashbackUsed = new BitSet();
 
         // Initialize pending operations
         this.pendingOperations = new ArrayList<>();
@@ -66,9 +82,18 @@ public abstract class Account {
 
     /***
      * getter for the currency of the account
-     * @return - returning the currency
+     * @return - returning the currency code
      */
     public String getCurrency() {
+        return currency.getCode();
+    }
+
+    /***
+     * getter for the interned currency of the account
+     * used for conversions, so we don't compare or hash strings
+     * @return - returning the currency handle
+     */
+    public Currency getCurrencyHandle() {
         return currency;
     }
 
@@ -77,7 +102,15 @@ public abstract class Account {
      * @return
      */
     public double getBalance() {
-        return balance;
+        return Money.toMajor(balance.get());
+    }
+
+    /***
+     * getter for the exact balance
+     * @return - the balance in minor units (see Money)
+     */
+    public long getBalanceMinor() {
+        return balance.get();
     }
 
     /***
@@ -90,7 +123,7 @@ public abstract class Account {
 
     /***
      * getter for the list of operations of the account
-     * @return
+     * @return - the operations, in the order they were added
      */
     public List<Operation> getOperations() {
         return operations;
@@ -104,38 +137,165 @@ public abstract class Account {
      */
     public void addFunds(final double amount) {
         if (amount > 0) {
-            this.balance += amount;
+            addFundsMinor(Money.toMinor(amount));
+        }
+    }
+
+    /***
+     * Same as above, but the amount is already in minor units
+     * (e.g. from ExchangeRateManager.convertToMinor)
+     * Money.NO_AMOUNT (no rate, not a number) is ignored like any amount <= 0
+     * @param minorUnits - the amount to be added
+     */
+    public void addFundsMinor(final long minorUnits) {
+        if (minorUnits > 0) {
+            balance.addAndGet(minorUnits);
         }
     }
 
     /***
-     * The method for removing funds from the account
-     * It is used when paying online, sending money spent payment etc
+     * Removes the funds only if the account has enough of them,
+     * the check and the debit are one atomic step (compare-and-set)
+     * This is the only way money leaves an account
      * @param amount - the amount to be removed
+     * @return - true if the funds were removed, false if the balance was too small
+     * or the amount is not a number (NaN, infinite)
      */
-    public void removeFunds(final double amount) {
-        this.balance -= amount;
+    public boolean tryRemoveFunds(final double amount) {
+        long minorUnits = Money.toMinor(amount);
+        if (minorUnits == Money.NO_AMOUNT) {
+            return false;
+        }
+        long current = balance.get();
+        while (current >= minorUnits) {
+            if (balance.compareAndSet(current, current - minorUnits)) {
+                return true;
+            }
+            current = balance.get();
+        }
+        return false;
     }
 
     /***
      * Adding an operation in the list of operations
      * to later be called in print transactions or reports
+     * The operations always go at the end (the reports print them in this order)
+     * Almost every operation is newer than the last one, so the list is usually
+     * in timestamp order too, but the split payments are added only when everybody
+     * accepted, with the timestamp of the split: those are put in their place
+     * in the time order index, found with binary search
+     * Card payments are also recorded in the spending ledger
      * @param operation - the operation to be added
      */
     public void addOperation(final Operation operation) {
+        if (operation.getOperationType().equals("cardPayment")) {
+            CardPaymentOperation cardPayment = (CardPaymentOperation) operation;
+            spendingLedger.record(cardPayment.getCommerciant(), cardPayment.getTimestamp(),
+                    cardPayment.getAmount());
+        }
+
+        int size = operations.size();
+        if (size > 0 && operations.get(size - 1).getTimestamp() > operation.getTimestamp()) {
+            operationsInTimeOrder = false;
+        }
+
+        // after every operation with the same or an older timestamp (almost always the end)
+        int position = firstInTimeOrderAfter(operation.getTimestamp());
+        if (size == timeOrder.length) {
+            timeOrder = Arrays.copyOf(timeOrder, size * 2);
+        }
+        System.arraycopy(timeOrder, position, timeOrder, position + 1, size - position);
+        timeOrder[position] = size;
         operations.add(operation);
     }
 
+    /***
+     * Getter for the operations ordered by timestamp
+     * (same timestamp -> the order they were added in)
+     * Nothing is sorted or copied, the list reads the operations through the time order index
+     * @return - read-only list of the operations in timestamp order
+     */
+    public List<Operation> getOperationsInTimeOrder() {
+        if (operationsInTimeOrder) {
+            return Collections.unmodifiableList(operations);
+        }
+        int[] order = timeOrder;
+        int size = operations.size();
+        return new AbstractList<>() {
+            @Override
+            public Operation get(final int index) {
+                Objects.checkIndex(index, size);
+                return operations.get(order[index]);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /***
+     * Getter for the operations between two timestamps (both included)
+     * The window is found with two binary searches in the time order index and
+     * only the operations inside it are touched. While the list is in timestamp
+     * order the window is a part of it, otherwise the positions of the window
+     * are put back in the order the operations were added
+     * @param startTimestamp - the first timestamp of the window
+     * @param endTimestamp - the last timestamp of the window
+     * @return - read-only list of the operations in the window, in the order they were added
+     */
+    public List<Operation> getOperationsBetween(final int startTimestamp,
+                                                final int endTimestamp) {
+        if (startTimestamp > endTimestamp) {
+            return List.of();
+        }
+        int from = firstInTimeOrderAfter((long) startTimestamp - 1);
+        int to = firstInTimeOrderAfter(endTimestamp);
+        if (operationsInTimeOrder) {
+            return Collections.unmodifiableList(operations.subList(from, to));
+        }
+        int[] positions = Arrays.copyOfRange(timeOrder, from, to);
+        Arrays.sort(positions);
+        List<Operation> window = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            window.add(operations.get(position));
+        }
+        return Collections.unmodifiableList(window);
+    }
+
+    /***
+     * Binary search in the time order index
+     * @param timestamp - the timestamp
+     * @return - the place in the index of the first operation with a bigger timestamp
+     * (the number of operations if there is none)
+     */
+    private int firstInTimeOrderAfter(final long timestamp) {
+        int low = 0;
+        int high = operations.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (operations.get(timeOrder[middle]).getTimestamp() <= timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
     /***
      * Adding a card to the account
      * Calling the factory to create the card
      * and the adding the created card to the account
      * @param type - the type of the card to be added
      * @param cardNumber - the number of the card to be added
+     * @return - the created card
      */
-    public void addCard(final String type, final String cardNumber) {
+    public Card addCard(final String type, final String cardNumber) {
         Card card = CardFactory.createCard(type, cardNumber);
         cards.add(card);
+        return card;
     }
 
     /***
@@ -192,15 +352,6 @@ public abstract class Account {
         this.alias = alias;
     }
 
-    /***
-     * Mark cashback as applied for a specific category.
-     * This is used to prevent multiple cashback applications for the same category.
-     * @param category - the category name
-     */
-    public void applyCashback(final String category) {
-        cashbackApplied.put(category, true);
-    }
-
     /***
      * Add a pending operation to the account.
      * @param operation - the operation to be added to pending.
@@ -219,19 +370,32 @@ public abstract class Account {
 
     /***
      * Getter for nrOfTransactionsCashbackUsed.
-     * @param category - the category name.
+     * @param categoryIndex - the index of the category (see CategoryRuleTable).
      * @return - true if the cashback was used, false otherwise.
      */
-    public boolean hasUsedNrOfTransactionsCashback(final String category) {
-        return nrOfTransactionsCashbackUsed.getOrDefault(category, false);
+    public boolean hasUsedNrOfTransactionsCashback(final int categoryIndex) {
+        return nrOfTransactionsCashbackUsed.get(categoryIndex);
     }
 
     /***
      * Mark nrOfTransactionsCashback as used for a specific category.
-     * @param category - the category name.
+     * @param categoryIndex - the index of the category (see CategoryRuleTable).
+     */
+    public void markNrOfTransactionsCashbackAsUsed(final int categoryIndex) {
+        nrOfTransactionsCashbackUsed.set(categoryIndex);
+    }
+
+    /***
+     * Counts one more payment of this account to a commerciant
+     * @param merchantId - the ID of the commerciant (given by the MerchantDirectory)
+     * @return - the number of payments to it, this one included
      */
-    public void markNrOfTransactionsCashbackAsUsed(final String category) {
-        nrOfTransactionsCashbackUsed.put(category, true);
+    public int incrementMerchantTransactionCount(final int merchantId) {
+        if (merchantId >= merchantTransactionCounts.length) {
+            merchantTransactionCounts = Arrays.copyOf(merchantTransactionCounts,
+                    Math.max(merchantId + 1, merchantTransactionCounts.length * 2));
+        }
+        return ++merchantTransactionCounts[merchantId];
     }
 
     /***
@@ -254,39 +418,42 @@ public abstract class Account {
     public abstract void setInterestRate(double interestRate);
 
     /***
-     * putting each commerciant / merchant spending in a map
-     * @param merchantName
-     * @param amount
+     * getter for the card payment totals per merchant
+     * every card payment added with addOperation is recorded in it
+     * @return - the spending ledger of the account
      */
-    public void addMerchantSpending(final String merchantName, final double amount) {
-        double currentSpending = merchantSpending.getOrDefault(merchantName, 0.0);
-        merchantSpending.put(merchantName, currentSpending + amount);
+    public SpendingLedger getSpendingLedger() {
+        return spendingLedger;
     }
 
     /***
      * putting each commerciant transaction in a map
      * @param merchantName
+     * @param timestamp
      * @return
      */
-    public void addCommerciantTransaction(final String merchantName, final double amount,
-                                          final String userEmail) {
+    public void addCommerciantTransaction(final String merchantName, final int timestamp,
+                                          final double amount, final String userEmail) {
         // nu face nimic pentru conturile care nu sunt de tip business
     }
 
     /***
      * to be overridden in the business account
-     * @return
+     * @param userEmail
+     * @param timestamp
+     * @param amount
      */
-    public void addSpent(final String userEmail, final double amount) {
+    public void addSpent(final String userEmail, final int timestamp, final double amount) {
         // Implicit, conturile standard nu fac nimic
     }
 
     /***
      * to be overridden in the business account
      * @param userEmail
+     * @param timestamp
      * @param amount
      */
-    public void addDeposit(final String userEmail, final double amount) {
+    public void addDeposit(final String userEmail, final int timestamp, final double amount) {
         // Implicit, conturile standard nu fac nimic
     }
 
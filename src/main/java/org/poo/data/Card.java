@@ -1,7 +1,7 @@
 package org.poo.data;
 
 public abstract class Card {
-    private String cardNumber;
+    private final String cardNumber;
     private String status;
     private boolean isFrozen;
 
@@ -45,24 +45,6 @@ public abstract class Card {
         return cardNumber;
     }
 
-    /***
-     * Setter for the card number
-     * I use this to set a new card number for the one time card
-     * when paying and I need a new card number
-     * @param cardNumber - card nr to be set
-     */
-    public void setCardNumber(final String cardNumber) {
-        this.cardNumber = cardNumber;
-    }
-
-    /***
-     * Paying online method depends on the type of the card
-     * If its one time I also have to change the card nr
-     * @param amount - amount to be paid
-     * @param account - owner of the card
-     */
-    public abstract void payOnline(double amount, Account account);
-
     /***
      * getter for the card type
      * @return - regular or oneTime
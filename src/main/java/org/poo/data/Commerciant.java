@@ -1,16 +1,11 @@
 package org.poo.data;
 
-import java.util.HashMap;
-import java.util.Map;
-
 public class Commerciant {
-    private static Map<String, Commerciant> merchants = new HashMap<>();
-
     private String name;
     private String category; // Food, Clothes, Tech
     private String cashbackType; // nrOfTransactions or spendingThreshold
     private String account; // IBAN-ul comerciantului
-    private Map<Account, Integer> transactionCounts; // Transactions per account
+    private int id; // index in the MerchantDirectory, for the counters of the accounts
 
     public Commerciant(final String name, final String category, final String cashbackType,
                        final String account) {
@@ -18,17 +13,6 @@ public class Commerciant {
         this.category = category;
         this.cashbackType = cashbackType;
         this.account = account;
-        this.transactionCounts = new HashMap<>();
-        merchants.put(name, this);
-    }
-
-    /***
-     * getting commerciant by string name
-     * @param name
-     * @return
-     */
-    public static Commerciant getMerchantByName(final String name) {
-        return merchants.get(name);
     }
 
     /***
@@ -64,12 +48,27 @@ public class Commerciant {
     }
 
     /***
-     * getter for transaction counts
+     * getter for the ID of the commerciant
      * @return
      */
-    public int incrementAndGetTransactionCount(final Account account) {
-        int currentCount = transactionCounts.getOrDefault(account, 0);
-        transactionCounts.put(account, currentCount + 1);
-        return currentCount + 1;
+    public int getId() {
+        return id;
+    }
+
+    /***
+     * setter for the ID, given when the commerciant is added to the directory
+     * @param id
+     */
+    public void setId(final int id) {
+        this.id = id;
+    }
+
+    /***
+     * counts one more payment of the account to this commerciant
+     * (the counter is kept by the account, at the ID of the commerciant)
+     * @return - the number of payments, this one included
+     */
+    public int incrementAndGetTransactionCount(final Account payingAccount) {
+        return payingAccount.incrementMerchantTransactionCount(id);
     }
 }
@@ -0,0 +1,91 @@
+package org.poo.data;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/***
+ * What a business account spent at one commerciant
+ * updated on every transaction, so the business report only reads it
+ *  - the total received by the commerciant from the account
+ *  - how much every user spent there and in how many transactions
+ *    (users in the order of their first transaction)
+ * everything is kept in timestamp order (see TimeBuckets), so any time window works
+ * and its sums are added up in order, as the running totals were
+ */
+public class CommerciantStats {
+    private final TimeBuckets received;
+    private final Map<String, TimeBuckets> spentByUser;
+
+    public CommerciantStats() {
+        this.received = new TimeBuckets();
+        this.spentByUser = new LinkedHashMap<>();
+    }
+
+    /***
+     * adding a transaction made by a user at this commerciant
+     * @param userEmail - the email of the user that paid
+     * @param timestamp - when the user paid
+     * @param amount - the amount paid
+     */
+    public void addTransaction(final String userEmail, final int timestamp, final double amount) {
+        received.add(timestamp, amount);
+        spentByUser.computeIfAbsent(userEmail, email -> new TimeBuckets()).add(timestamp, amount);
+    }
+
+    /***
+     * true if there was at least one transaction between two timestamps (both included)
+     * @param startTimestamp
+     * @param endTimestamp
+     * @return
+     */
+    public boolean hasTransactionsBetween(final int startTimestamp, final int endTimestamp) {
+        return received.countBetween(startTimestamp, endTimestamp) > 0;
+    }
+
+    /***
+     * the total received by the commerciant between two timestamps (both included)
+     * @param startTimestamp
+     * @param endTimestamp
+     * @return
+     */
+    public double getTotalReceivedBetween(final int startTimestamp, final int endTimestamp) {
+        return received.sumBetween(startTimestamp, endTimestamp);
+    }
+
+    /***
+     * the users that paid at this commerciant, in the order of their first transaction
+     * @return - read-only set of emails
+     */
+    public Set<String> getUsers() {
+        return Collections.unmodifiableSet(spentByUser.keySet());
+    }
+
+    /***
+     * how much a user spent at the commerciant between two timestamps (both included)
+     * @param userEmail - the email of the user
+     * @param startTimestamp
+     * @param endTimestamp
+     * @return - the amount (0 if none)
+     */
+    public double getSpentBetween(final String userEmail, final int startTimestamp,
+                                  final int endTimestamp) {
+        TimeBuckets spent = spentByUser.get(userEmail);
+        return spent == null ? 0.0 : spent.sumBetween(startTimestamp, endTimestamp);
+    }
+
+    /***
+     * the number of transactions of a user at the commerciant
+     * between two timestamps (both included)
+     * @param userEmail - the email of the user
+     * @param startTimestamp
+     * @param endTimestamp
+     * @return - the number of transactions (0 if none)
+     */
+    public int getTransactionCountBetween(final String userEmail, final int startTimestamp,
+                                          final int endTimestamp) {
+        TimeBuckets spent = spentByUser.get(userEmail);
+        return spent == null ? 0 : spent.countBetween(startTimestamp, endTimestamp);
+    }
+}
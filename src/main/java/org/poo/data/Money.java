@@ -0,0 +1,64 @@
+package org.poo.data;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point amounts, the way the balances are kept:
+ *  - an amount is a long number of minor units, 1 minor unit = 1 / SCALE
+ *    of the currency (micro units, so rates and commissions keep their precision)
+ *  - adding and subtracting minor units is exact, no drift over many operations
+ *  - conversion from a double rounds once, to the closest minor unit
+ */
+public final class Money {
+    public static final long SCALE = 1_000_000L;
+    // returned by conversions that can't be done (no exchange rate)
+    public static final long NO_AMOUNT = Long.MIN_VALUE;
+
+    private static final BigDecimal SCALE_DECIMAL = BigDecimal.valueOf(SCALE);
+
+    private Money() {
+    }
+
+    /***
+     * An amount in minor units
+     * NaN (e.g. an amount converted with a missing rate) or an infinite amount
+     * has no minor units, it gives NO_AMOUNT instead of a silent 0 / Long.MAX_VALUE,
+     * and the balances refuse it
+     * @param amount - the amount in the currency (e.g. 12.5 RON)
+     * @return - the closest number of minor units, NO_AMOUNT if the amount is not finite
+     */
+    public static long toMinor(final double amount) {
+        if (!Double.isFinite(amount)) {
+            return NO_AMOUNT;
+        }
+        return Math.round(amount * SCALE);
+    }
+
+    /***
+     * An amount in the currency
+     * @param minorUnits - the amount in minor units
+     * @return - the amount in the currency
+     */
+    public static double toMajor(final long minorUnits) {
+        return (double) minorUnits / SCALE;
+    }
+
+    /***
+     * amount * rate in minor units, computed exactly and rounded once
+     * (half even, so rounding errors don't pile up in one direction)
+     * @param amount - the amount in the source currency
+     * @param rate - the exchange rate
+     * @return - the converted amount in minor units, NO_AMOUNT if the rate is NaN
+     */
+    public static long convertToMinor(final double amount, final double rate) {
+        if (Double.isNaN(rate) || Double.isNaN(amount)) {
+            return NO_AMOUNT;
+        }
+        return BigDecimal.valueOf(amount)
+                .multiply(BigDecimal.valueOf(rate))
+                .multiply(SCALE_DECIMAL)
+                .setScale(0, RoundingMode.HALF_EVEN)
+                .longValueExact();
+    }
+}
@@ -0,0 +1,47 @@
+package org.poo.data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running card-payment totals of one account, per merchant:
+ *  - merchants are kept sorted by name (the order spendingsReport prints them in)
+ *  - for every merchant the payments are kept in timestamp order (see TimeBuckets),
+ *    so the total for a time window only reads the payments of that merchant in the window
+ */
+public final class SpendingLedger {
+    private final TreeMap<String, TimeBuckets> merchants;
+
+    public SpendingLedger() {
+        this.merchants = new TreeMap<>();
+    }
+
+    /***
+     * Records a card payment
+     * @param merchant - the name of the merchant
+     * @param timestamp - the timestamp of the payment
+     * @param amount - the amount paid (in the currency of the account)
+     */
+    public void record(final String merchant, final int timestamp, final double amount) {
+        merchants.computeIfAbsent(merchant, name -> new TimeBuckets()).add(timestamp, amount);
+    }
+
+    /***
+     * The total spent at every merchant between two timestamps (both included)
+     * Only the merchants with at least one payment in the window are included
+     * @param startTimestamp - the first timestamp of the window
+     * @param endTimestamp - the last timestamp of the window
+     * @return - merchant name -> total, sorted by merchant name
+     */
+    public Map<String, Double> totalsBetween(final int startTimestamp, final int endTimestamp) {
+        Map<String, Double> totals = new LinkedHashMap<>();
+        for (Map.Entry<String, TimeBuckets> entry : merchants.entrySet()) {
+            TimeBuckets buckets = entry.getValue();
+            if (buckets.countBetween(startTimestamp, endTimestamp) > 0) {
+                totals.put(entry.getKey(), buckets.sumBetween(startTimestamp, endTimestamp));
+            }
+        }
+        return totals;
+    }
+}
@@ -1,12 +1,17 @@
 package org.poo.data;
 
+/**
+ * What one associate spent and deposited in a business account,
+ * kept in timestamp order (see TimeBuckets) so a report can ask for any time window
+ * and gets the sum of just that window, added up in order
+ */
 public class Stats {
-    private double spent;
-    private double deposited;
+    private final TimeBuckets spent;
+    private final TimeBuckets deposited;
 
     public Stats() {
-        this.spent = 0.0;
-        this.deposited = 0.0;
+        this.spent = new TimeBuckets();
+        this.deposited = new TimeBuckets();
     }
 
     /***
@@ -14,15 +19,26 @@ public class Stats {
      * @return
      */
     public double getSpent() {
-        return spent;
+        return spent.total();
+    }
+
+    /***
+     * the spent amount between two timestamps (both included)
+     * @param startTimestamp
+     * @param endTimestamp
+     * @return
+     */
+    public double getSpentBetween(final int startTimestamp, final int endTimestamp) {
+        return spent.sumBetween(startTimestamp, endTimestamp);
     }
 
     /***
      * adding the spent amount
+     * @param timestamp - when it was spent
      * @param amount
      */
-    public void addSpent(final double amount) {
-        this.spent += amount;
+    public void addSpent(final int timestamp, final double amount) {
+        spent.add(timestamp, amount);
     }
 
     /***
@@ -30,15 +46,25 @@ public class Stats {
      * @return
      */
     public double getDeposited() {
-        return deposited;
+        return deposited.total();
+    }
+
+    /***
+     * the deposited amount between two timestamps (both included)
+     * @param startTimestamp
+     * @param endTimestamp
+     * @return
+     */
+    public double getDepositedBetween(final int startTimestamp, final int endTimestamp) {
+        return deposited.sumBetween(startTimestamp, endTimestamp);
     }
 
     /***
      * adding the deposited amount
+     * @param timestamp - when it was deposited
      * @param amount
      */
-    public void addDeposited(final double amount) {
-        this.deposited += amount;
+    public void addDeposited(final int timestamp, final double amount) {
+        deposited.add(timestamp, amount);
     }
 }
-
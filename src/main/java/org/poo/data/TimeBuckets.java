@@ -0,0 +1,97 @@
+package org.poo.data;
+
+import java.util.Arrays;
+
+/**
+ * Amounts kept in timestamp order:
+ *  - the amounts of a time window are next to each other, found with binary search
+ *  - the sum of a window adds up only its own amounts, in timestamp order,
+ *    like a report reading the operations one by one would
+ *    (no difference of two running sums, that would bring in the rounding
+ *    errors of the amounts before the window)
+ *  - the sum of everything is kept as it comes, in the order of the additions
+ */
+public final class TimeBuckets {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] timestamps = new int[INITIAL_CAPACITY];
+    private double[] amounts = new double[INITIAL_CAPACITY];
+    private int size;
+    private double total;
+
+    /***
+     * Adds an amount after the ones with the same or an earlier timestamp
+     * @param timestamp - the timestamp of the amount
+     * @param amount - the amount
+     */
+    public void add(final int timestamp, final double amount) {
+        // almost always at the end, amounts come in time order
+        int position = firstAfter(timestamp);
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            amounts = Arrays.copyOf(amounts, size * 2);
+        }
+        System.arraycopy(timestamps, position, timestamps, position + 1, size - position);
+        System.arraycopy(amounts, position, amounts, position + 1, size - position);
+        timestamps[position] = timestamp;
+        amounts[position] = amount;
+        size++;
+        total += amount;
+    }
+
+    /***
+     * The sum of the amounts between two timestamps (both included)
+     * @param startTimestamp - the first timestamp of the window
+     * @param endTimestamp - the last timestamp of the window
+     * @return - the sum, 0 if there is nothing in the window
+     */
+    public double sumBetween(final long startTimestamp, final long endTimestamp) {
+        int to = firstAfter(endTimestamp);
+        double sum = 0.0;
+        for (int i = firstAfter(startTimestamp - 1); i < to; i++) {
+            sum += amounts[i];
+        }
+        return sum;
+    }
+
+    /***
+     * How many amounts were added between two timestamps (both included)
+     * @param startTimestamp - the first timestamp of the window
+     * @param endTimestamp - the last timestamp of the window
+     * @return - the number of amounts, 0 if there is nothing in the window
+     */
+    public int countBetween(final long startTimestamp, final long endTimestamp) {
+        return Math.max(0, firstAfter(endTimestamp) - firstAfter(startTimestamp - 1));
+    }
+
+    /***
+     * The sum of all the amounts
+     * @return
+     */
+    public double total() {
+        return total;
+    }
+
+    /***
+     * The number of all the amounts
+     * @return
+     */
+    public int count() {
+        return size;
+    }
+
+    // the position of the first amount with a later timestamp
+    private int firstAfter(final long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] <= timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,96 @@
+package org.poo.data;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * The operations of several accounts, in timestamp order, without copying them
+ * (unless an account has operations out of order):
+ *  - the operations of every account are taken in timestamp order
+ *    (Account.getOperationsInTimeOrder), so the lists only have to be merged
+ *    (k-way merge with a priority queue holding the next operation of every account)
+ *  - operations with the same timestamp come in the order of the accounts,
+ *    and in the order of the list inside one account
+ *    (same order as putting all the lists together and sorting them)
+ *  - the merge is lazy, every next() does only O(log k) work
+ */
+public final class TimeOrderedOperations implements Iterable<Operation> {
+    private final List<List<Operation>> operationLists;
+
+    public TimeOrderedOperations(final List<Account> accounts) {
+        this.operationLists = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            operationLists.add(account.getOperationsInTimeOrder());
+        }
+    }
+
+    /***
+     * Iterates all the operations, oldest first
+     * @return - the merging iterator
+     */
+    @Override
+    public Iterator<Operation> iterator() {
+        return new MergingIterator();
+    }
+
+    // Position in the operation list of one account
+    private static final class Cursor {
+        private final int listIndex;
+        private final List<Operation> operations;
+        private int position;
+
+        Cursor(final int listIndex, final List<Operation> operations) {
+            this.listIndex = listIndex;
+            this.operations = operations;
+        }
+
+        int currentTimestamp() {
+            return operations.get(position).getTimestamp();
+        }
+    }
+
+    private final class MergingIterator implements Iterator<Operation> {
+        private final PriorityQueue<Cursor> heads;
+
+        MergingIterator() {
+            int size = Math.max(1, operationLists.size());
+            this.heads = new PriorityQueue<>(size, (first, second) -> {
+                int byTimestamp = Integer.compare(first.currentTimestamp(),
+                        second.currentTimestamp());
+                if (byTimestamp != 0) {
+                    return byTimestamp;
+                }
+                return Integer.compare(first.listIndex, second.listIndex);
+            });
+
+            for (int i = 0; i < operationLists.size(); i++) {
+                if (!operationLists.get(i).isEmpty()) {
+                    heads.add(new Cursor(i, operationLists.get(i)));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Operation next() {
+            Cursor cursor = heads.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+
+            Operation operation = cursor.operations.get(cursor.position);
+            cursor.position++;
+            if (cursor.position < cursor.operations.size()) {
+                heads.add(cursor);
+            }
+            return operation;
+        }
+    }
+}
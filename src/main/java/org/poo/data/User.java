@@ -1,6 +1,6 @@
 package org.poo.data;
 
-import org.poo.servicePlan.*;
+import org.poo.servicePlan.ServicePlan;
 
 import java.time.LocalDate;
 import java.time.Period;
@@ -14,12 +14,7 @@ public class User {
     private LocalDate birthDate;
     private String occupation;
     private List<Account> accounts = new ArrayList<>();
-    private TransactionService transactionService; // Decorator for cashback and commission logic
-
-    // Named constants to replace "magic numbers"
-    private static final double SPENDING_THRESHOLD_500 = 500.0;
-    private static final double SPENDING_THRESHOLD_300 = 300.0;
-    private static final double SPENDING_THRESHOLD_100 = 100.0;
+    private ServicePlan plan; // shared tier table for cashback and commission
 
     // Constructor
     public User(final String firstName, final String lastName, final String email,
@@ -31,9 +26,7 @@ public class User {
         this.occupation = occupation;
 
         // Default plan based on occupation
-        this.transactionService = occupation.equalsIgnoreCase("student")
-                ? new StudentPlanDecorator(new BaseTransactionService())
-                : new StandardPlanDecorator(new BaseTransactionService());
+        this.plan = ServicePlan.defaultFor(occupation);
     }
 
     /**
@@ -122,24 +115,15 @@ public class User {
     }
 
     /***
-     * here i basically call the applyCashback method from the transactionService
+     * here i basically call the applyCashback method from the plan
      * on spending threshold strategy this is called
      * @param totalSpending
      * @param transactionAmount
      * @return
      */
-    public double applyCashback(double totalSpending, double transactionAmount) {
-        // Get the cashback rate based on the total spending threshold and plan
-        if (totalSpending >= SPENDING_THRESHOLD_500) {
-            return transactionService.applyCashback(SPENDING_THRESHOLD_500, transactionAmount);
-        }
-        if (totalSpending >= SPENDING_THRESHOLD_300) {
-            return transactionService.applyCashback(SPENDING_THRESHOLD_300, transactionAmount);
-        }
-        if (totalSpending >= SPENDING_THRESHOLD_100) {
-            return transactionService.applyCashback(SPENDING_THRESHOLD_100, transactionAmount);
-        }
-        return 0.0;
+    public double applyCashback(final double totalSpending, final double transactionAmount) {
+        // the plan finds the tier of the total spending
+        return plan.applyCashback(totalSpending, transactionAmount);
     }
 
     /**
@@ -148,41 +132,41 @@ public class User {
      * @return - the commission amount
      */
     public double applyCommission(final double transactionAmount) {
-        return transactionService.applyCommission(transactionAmount);
+        return plan.applyCommission(transactionAmount);
     }
 
     /**
      * Upgrades the user's plan to a new plan.
+     * Only upgrades are allowed (standard / student -> silver -> gold)
      * @param newPlanType - the new plan type
      */
-    public String upgradePlan(String newPlanType) {
-        String normalizedCurrentPlan = getCurrentPlanName().toLowerCase();
-        newPlanType = newPlanType.toLowerCase();
+    public String upgradePlan(final String newPlanType) {
+        ServicePlan newPlan = ServicePlan.fromName(newPlanType);
+        if (newPlan == null) {
+            return "Invalid plan type: " + newPlanType;
+        }
 
         // Check if the user is already on the new plan
-        if (normalizedCurrentPlan.equals(newPlanType)) {
-            return "The user already has the " + newPlanType + " plan.";
+        if (newPlan == plan) {
+            return "The user already has the " + newPlan.getPlanName() + " plan.";
         }
 
         // Prevent downgrades
-        if ((normalizedCurrentPlan.equals("gold") && !newPlanType.equals("gold"))
-                || (normalizedCurrentPlan.equals("silver")
-                && newPlanType.equals("standard"))) {
-
+        if (!plan.isBelow(newPlan)) {
             return "You cannot downgrade your plan.";
         }
 
-        // Apply upgrade
-        switch (newPlanType) {
-            case "silver" -> this.transactionService
-                    = new SilverPlanDecorator(transactionService);
-            case "gold" -> this.transactionService
-                    = new GoldPlanDecorator(transactionService);
-            default -> {
-                return "Invalid plan type: " + newPlanType;
-            }
-        }
-        return "Upgrade successful to " + newPlanType + " plan.";
+        // Apply upgrade (just another shared plan, nothing is wrapped)
+        this.plan = newPlan;
+        return "Upgrade successful to " + newPlan.getPlanName() + " plan.";
+    }
+
+    /**
+     * Getter for the current plan
+     * @return - the plan
+     */
+    public ServicePlan getPlan() {
+        return plan;
     }
 
     /**
@@ -190,6 +174,6 @@ public class User {
      * @return - the plan name
      */
     public String getCurrentPlanName() {
-        return transactionService.getClass().getSimpleName().replace("PlanDecorator", "");
+        return plan.getPlanName();
     }
 }
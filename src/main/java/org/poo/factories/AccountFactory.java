@@ -1,5 +1,6 @@
 package org.poo.factories;
 
+import org.poo.currencyExchange.Currency;
 import org.poo.currencyExchange.ExchangeRateManager;
 import org.poo.data.Account;
 import org.poo.accountTypes.ClassicAccount;
@@ -27,13 +28,16 @@ public final class AccountFactory {
             final double interestRate,
             final ExchangeRateManager exchangeRateManager) { // Added ExchangeRateManager
 
+        Currency accountCurrency = exchangeRateManager.currencyOf(currency);
+
         switch (type.toLowerCase()) {
             case "classic":
-                return new ClassicAccount(iban, currency);
+                return new ClassicAccount(iban, accountCurrency);
             case "savings":
-                return new SavingsAccount(iban, currency, interestRate);
+                return new SavingsAccount(iban, accountCurrency, interestRate);
             case "business":
-                return new BusinessAccount(iban, currency, ownerEmail, exchangeRateManager);
+                return new BusinessAccount(iban, accountCurrency, ownerEmail,
+                        exchangeRateManager);
             default:
                 throw new IllegalArgumentException("Unknown account type: " + type);
         }
@@ -1,7 +1,9 @@
 package org.poo.fileio;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.poo.commandPattern.CommandType;
 
 import java.util.List;
 
@@ -34,4 +36,17 @@ public final class CommandInput {
     private double minBalance;
     private List<String> accounts;
     private List<Double> amountForUsers;
+    // resolved from "command" when it is read, never part of the input itself
+    @JsonIgnore
+    private CommandType commandType;
+
+    /***
+     * Setter for the command name, also resolves the command type
+     * (null if the command is not recognized)
+     * @param command - the name of the command
+     */
+    public void setCommand(final String command) {
+        this.command = command;
+        this.commandType = CommandType.fromName(command);
+    }
 }
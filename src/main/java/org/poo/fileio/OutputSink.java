@@ -0,0 +1,18 @@
+package org.poo.fileio;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.Closeable;
+
+/***
+ * Where the commands send their results
+ * Each result is handed over once it is complete (the commands don't touch
+ * a node after adding it), so it can be written out right away
+ */
+public interface OutputSink extends Closeable {
+    /***
+     * Adds one result to the output
+     * @param node - the complete result of a command
+     */
+    void add(JsonNode node);
+}
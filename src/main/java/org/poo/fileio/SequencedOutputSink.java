@@ -0,0 +1,86 @@
+package org.poo.fileio;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Output for commands that run in parallel (see LaneExecutionEngine):
+ *  - every command gets a sequence number (its position in the input)
+ *    and its results are kept apart while it runs, on its own thread
+ *  - when a command is done, its results and those of every later command
+ *    that is already done go to the real output, in input order
+ *  - so the file is exactly the one written when the commands run one by one
+ */
+public final class SequencedOutputSink implements OutputSink {
+    private final OutputSink target;
+    private final ThreadLocal<List<JsonNode>> currentResults;
+    // guarded by this
+    private final Map<Long, List<JsonNode>> finishedResults;
+    private long nextToWrite;
+
+    public SequencedOutputSink(final OutputSink target) {
+        this.target = target;
+        this.currentResults = new ThreadLocal<>();
+        this.finishedResults = new HashMap<>();
+        this.nextToWrite = 0;
+    }
+
+    /***
+     * The current thread starts running a command
+     * @param sequence - the position of the command in the input
+     */
+    public void begin(final long sequence) {
+        currentResults.set(new ArrayList<>());
+    }
+
+    /***
+     * The command that runs on the current thread is done, its results
+     * are written as soon as every command before it is done too
+     * @param sequence - the position of the command in the input
+     */
+    public void complete(final long sequence) {
+        List<JsonNode> results = currentResults.get();
+        currentResults.remove();
+        synchronized (this) {
+            finishedResults.put(sequence, results);
+            for (List<JsonNode> ready = finishedResults.remove(nextToWrite); ready != null;
+                    ready = finishedResults.remove(nextToWrite)) {
+                for (JsonNode node : ready) {
+                    target.add(node);
+                }
+                nextToWrite++;
+            }
+        }
+    }
+
+    /***
+     * Adds a result of the command that runs on the current thread
+     * (results added outside of a command go straight to the output)
+     * @param node - the complete result of a command
+     */
+    @Override
+    public void add(final JsonNode node) {
+        List<JsonNode> results = currentResults.get();
+        if (results != null) {
+            results.add(node);
+            return;
+        }
+        synchronized (this) {
+            target.add(node);
+        }
+    }
+
+    /***
+     * Closes the real output
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        target.close();
+    }
+}
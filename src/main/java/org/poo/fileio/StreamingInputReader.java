@@ -0,0 +1,133 @@
+package org.poo.fileio;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Reads an input file without loading the whole command list in memory:
+ *  - users, commerciants and exchange rates are read when the reader is opened
+ *  - the commands are then pulled one by one with nextCommand(), straight from
+ *    the parser, so only the command being executed is in memory
+ *  - if the commands come before one of the other sections in the file, they
+ *    can't be executed before the rest is known, so only then they are
+ *    read all at once (the same thing ObjectInput does)
+ */
+public final class StreamingInputReader implements Closeable {
+    private static final String USERS = "users";
+    private static final String COMMERCIANTS = "commerciants";
+    private static final String EXCHANGE_RATES = "exchangeRates";
+    private static final String COMMANDS = "commands";
+
+    private final JsonParser parser;
+    private UserInput[] users;
+    private CommerciantInput[] commerciants;
+    private ExchangeInput[] exchangeRates;
+
+    // commands read all at once (only when they are not the last section)
+    private Iterator<CommandInput> bufferedCommands;
+    // true while the parser is inside the commands array
+    private boolean streamingCommands;
+
+    public StreamingInputReader(final ObjectMapper objectMapper, final File file)
+            throws IOException {
+        this.parser = objectMapper.getFactory().createParser(file);
+        // the parser binds the objects with the settings of the mapper
+        parser.setCodec(objectMapper);
+        readSections();
+    }
+
+    /***
+     * Reads the sections of the input until it gets to the commands
+     * (or to the end of the file)
+     * @throws IOException - if the file is not a valid input
+     */
+    private void readSections() throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Input must be a JSON object");
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String section = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            switch (section) {
+                case USERS -> users = parser.readValueAs(UserInput[].class);
+                case COMMERCIANTS -> commerciants = parser.readValueAs(CommerciantInput[].class);
+                case EXCHANGE_RATES -> exchangeRates = parser.readValueAs(ExchangeInput[].class);
+                case COMMANDS -> {
+                    if (value == JsonToken.START_ARRAY && users != null
+                            && commerciants != null && exchangeRates != null) {
+                        // everything else is known -> stream from here
+                        streamingCommands = true;
+                        return;
+                    }
+                    CommandInput[] commands = parser.readValueAs(CommandInput[].class);
+                    bufferedCommands = commands == null ? null
+                            : Arrays.asList(commands).iterator();
+                }
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    /***
+     * Gives the next command of the input
+     * @return - the next command or null if there are no more commands
+     * @throws IOException - if the file is not a valid input
+     */
+    public CommandInput nextCommand() throws IOException {
+        if (bufferedCommands != null) {
+            return bufferedCommands.hasNext() ? bufferedCommands.next() : null;
+        }
+        if (!streamingCommands) {
+            return null;
+        }
+
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            // end of the commands array
+            streamingCommands = false;
+            return null;
+        }
+        return parser.readValueAs(CommandInput.class);
+    }
+
+    /***
+     * getter for the users of the input
+     * @return - the users (empty if the section is missing)
+     */
+    public UserInput[] getUsers() {
+        return users == null ? new UserInput[0] : users;
+    }
+
+    /***
+     * getter for the commerciants of the input
+     * @return - the commerciants (empty if the section is missing)
+     */
+    public CommerciantInput[] getCommerciants() {
+        return commerciants == null ? new CommerciantInput[0] : commerciants;
+    }
+
+    /***
+     * getter for the exchange rates of the input
+     * @return - the exchange rates (empty if the section is missing)
+     */
+    public ExchangeInput[] getExchangeRates() {
+        return exchangeRates == null ? new ExchangeInput[0] : exchangeRates;
+    }
+
+    /***
+     * Closes the file
+     * @throws IOException - if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
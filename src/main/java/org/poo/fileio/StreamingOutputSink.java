@@ -0,0 +1,57 @@
+package org.poo.fileio;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes the output array straight to the file, one result at a time:
+ *  - every result goes through the JsonGenerator as soon as a command adds it,
+ *    so the output is never kept in memory as one big tree
+ *  - with pretty printing the file looks exactly like the one written by
+ *    writerWithDefaultPrettyPrinter, without it everything is on one line
+ *  - the array is closed (and the file is complete) only on close()
+ */
+public final class StreamingOutputSink implements OutputSink {
+    private final ObjectMapper objectMapper;
+    private final JsonGenerator generator;
+
+    public StreamingOutputSink(final ObjectMapper objectMapper, final File file,
+                               final boolean prettyPrint) throws IOException {
+        this.objectMapper = objectMapper;
+        this.generator = objectMapper.getFactory().createGenerator(file, JsonEncoding.UTF8);
+        if (prettyPrint) {
+            generator.setPrettyPrinter(new DefaultPrettyPrinter());
+        }
+        generator.writeStartArray();
+    }
+
+    /***
+     * Writes one result to the file
+     * @param node - the complete result of a command
+     */
+    @Override
+    public void add(final JsonNode node) {
+        try {
+            objectMapper.writeTree(generator, node);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the output", e);
+        }
+    }
+
+    /***
+     * Ends the output array and closes the file
+     * @throws IOException - if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        generator.writeEndArray();
+        generator.close();
+    }
+}
@@ -0,0 +1,68 @@
+package org.poo.main;
+
+import org.poo.checker.Checker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs input files in parallel, every file on its own virtual thread:
+ *  - every file is an isolated run (its own BankContext), so nothing is shared
+ *  - the output of a file is checked as soon as its run is done,
+ *    while the other files are still running
+ *  - an optional limit caps how many files run at the same time
+ *    (checking doesn't count, only running)
+ */
+public final class BatchRunner implements AutoCloseable {
+    private final ExecutorService executor;
+    private final Semaphore runPermits;
+
+    /***
+     * @param maxParallelRuns - how many files can run at the same time,
+     *                        0 (or less) for no limit
+     */
+    public BatchRunner(final int maxParallelRuns) {
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.runPermits = maxParallelRuns > 0 ? new Semaphore(maxParallelRuns) : null;
+    }
+
+    /***
+     * Starts running a file, its output is checked right after
+     * @param inputName - the name of the input file (in the tests directory)
+     * @param outputPath - where the output goes
+     * @return - completes with true if the output matches the reference
+     */
+    public CompletableFuture<Boolean> submit(final String inputName, final String outputPath) {
+        return CompletableFuture.supplyAsync(() -> {
+            run(inputName, outputPath);
+            return Checker.checkTest(inputName);
+        }, executor);
+    }
+
+    private void run(final String inputName, final String outputPath) {
+        if (runPermits != null) {
+            runPermits.acquireUninterruptibly();
+        }
+        try {
+            Main.action(inputName, outputPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (runPermits != null) {
+                runPermits.release();
+            }
+        }
+    }
+
+    /***
+     * Waits for every submitted file and stops the runner
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
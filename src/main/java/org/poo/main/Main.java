@@ -1,20 +1,27 @@
 package org.poo.main;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import org.poo.checker.Checker;
 import org.poo.checker.CheckerConstants;
+import org.poo.commandPattern.AccessAnalyzer;
 import org.poo.commandPattern.CommandFactory;
 import org.poo.commandPattern.CommandInvoker;
+import org.poo.commandPattern.LaneExecutionEngine;
+import org.poo.context.BankContext;
 import org.poo.currencyExchange.ExchangeRate;
 import org.poo.currencyExchange.ExchangeRateManager;
 import org.poo.data.*;
 import org.poo.fileio.CommandInput;
 import org.poo.fileio.CommerciantInput;
-import org.poo.fileio.ObjectInput;
+import org.poo.fileio.ExchangeInput;
+import org.poo.fileio.OutputSink;
+import org.poo.fileio.SequencedOutputSink;
+import org.poo.fileio.StreamingInputReader;
+import org.poo.fileio.StreamingOutputSink;
 import org.poo.fileio.UserInput;
-import org.poo.utils.Utils;
+import org.poo.registry.MerchantDirectory;
+import org.poo.registry.UserDirectory;
+import org.poo.splitManager.SplitPaymentManager;
 
 import java.io.File;
 import java.io.IOException;
@@ -23,6 +30,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The entry point to this homework. It runs the checker that tests your implementation.
@@ -57,16 +65,23 @@ public final class Main {
                 sorted(Comparator.comparingInt(Main::fileConsumer))
                 .toList();
 
-        for (File file : sortedFiles) {
-            String filepath = CheckerConstants.OUT_PATH + file.getName();
-            File out = new File(filepath);
-            boolean isCreated = out.createNewFile();
-            if (isCreated) {
-                action(file.getName(), filepath);
+        // Every file is an isolated run (its own BankContext), so they all run in parallel,
+        // each on its own virtual thread, and each output is checked as soon as it is written
+        // -Dbank.parallelRuns=N -> at most N files running at the same time (default 0, no limit)
+        Map<String, CompletableFuture<Boolean>> checkedRuns = new LinkedHashMap<>();
+        try (BatchRunner batchRunner = new BatchRunner(
+                Integer.getInteger("bank.parallelRuns", 0))) {
+            for (File file : sortedFiles) {
+                String filepath = CheckerConstants.OUT_PATH + file.getName();
+                File out = new File(filepath);
+                boolean isCreated = out.createNewFile();
+                if (isCreated) {
+                    checkedRuns.put(file.getName(), batchRunner.submit(file.getName(), filepath));
+                }
             }
         }
 
-        Checker.calculateScore();
+        Checker.calculateScore(checkedRuns);
     }
 
     /**
@@ -78,57 +93,122 @@ public final class Main {
                               final String filePath2) throws IOException {
         ObjectMapper objectMapper = new ObjectMapper();
         File file = new File(CheckerConstants.TESTS_PATH + filePath1);
-        ObjectInput inputData = objectMapper.readValue(file, ObjectInput.class);
-        Utils.resetRandom();
-
-        // Conversion UserInput -> User
-        List<User> users = new ArrayList<>();
-        for (UserInput userInput : inputData.getUsers()) {
-            User user = new User(
-                    userInput.getFirstName(),
-                    userInput.getLastName(),
-                    userInput.getEmail(),
-                    LocalDate.parse(userInput.getBirthDate()),
-                    userInput.getOccupation()
-            );
-            users.add(user);
-        }
-
-        // Conversion CommerciantInput -> Commerciant
-        List<Commerciant> commerciants = new ArrayList<>();
-        for (CommerciantInput commerciantInput : inputData.getCommerciants()) {
-            Commerciant commerciant = new Commerciant(
-                    commerciantInput.getCommerciant(),
-                    commerciantInput.getType(),
-                    commerciantInput.getCashbackStrategy(),
-                    commerciantInput.getAccount()
-            );
-            commerciants.add(commerciant);
-        }
-
-        // Setting up the exchange rate Manager
-        ArrayNode output = objectMapper.createArrayNode();
-        List<ExchangeRate> exchangeRates = Arrays.stream(inputData.getExchangeRates())
-                .map(input -> new ExchangeRate(input.getFrom(), input.getTo(), input.getRate()))
-                .toList();
+        // Users, commerciants and exchange rates are read here,
+        // the commands are read while they are executed
+        // and their results are written to the file as soon as they are added
+        // (-Dbank.prettyOutput=false -> everything on one line)
+        boolean prettyOutput = Boolean.parseBoolean(
+                System.getProperty("bank.prettyOutput", "true"));
+        try (StreamingInputReader inputData = new StreamingInputReader(objectMapper, file);
+             OutputSink output = new StreamingOutputSink(objectMapper,
+                     new File(filePath2), prettyOutput)) {
+            // Conversion UserInput -> User, indexed by email
+            UserDirectory users = new UserDirectory();
+            for (UserInput userInput : inputData.getUsers()) {
+                User user = new User(
+                        userInput.getFirstName(),
+                        userInput.getLastName(),
+                        userInput.getEmail(),
+                        LocalDate.parse(userInput.getBirthDate()),
+                        userInput.getOccupation()
+                );
+                users.add(user);
+            }
 
-        ExchangeRateManager exchangeRateManager = new ExchangeRateManager(exchangeRates);
+            // Conversion CommerciantInput -> Commerciant
+            MerchantDirectory merchants = new MerchantDirectory();
+            for (CommerciantInput commerciantInput : inputData.getCommerciants()) {
+                Commerciant commerciant = new Commerciant(
+                        commerciantInput.getCommerciant(),
+                        commerciantInput.getType(),
+                        commerciantInput.getCashbackStrategy(),
+                        commerciantInput.getAccount()
+                );
+                merchants.add(commerciant);
+            }
 
-        // Factory + Invoker for command management (command pattern)
-        // the factory is used to create the commands
-        // the invoker is used to execute the commands
-        CommandFactory commandFactory = new CommandFactory(exchangeRateManager,
-                objectMapper, output);
-        CommandInvoker invoker = new CommandInvoker(commandFactory);
+            // Setting up the exchange rate Manager
+            // Rates without a timestamp are known from the start,
+            // the others are published as new versions when their timestamp comes
+            List<ExchangeRate> exchangeRates = new ArrayList<>();
+            TreeMap<Integer, List<ExchangeRate>> rateUpdates = new TreeMap<>();
+            for (ExchangeInput input : inputData.getExchangeRates()) {
+                ExchangeRate rate = new ExchangeRate(input.getFrom(), input.getTo(),
+                        input.getRate());
+                if (input.getTimestamp() <= 0) {
+                    exchangeRates.add(rate);
+                } else {
+                    rateUpdates.computeIfAbsent(input.getTimestamp(), t -> new ArrayList<>())
+                            .add(rate);
+                }
+            }
 
-        // Here is where the magic happens - executing the commands
-        for (CommandInput command : inputData.getCommands()) {
-            invoker.executeCommand(command.getCommand(), users, commerciants, command);
+            // -Dbank.rateCacheSize=N -> rates searched on demand and kept in a cache of N pairs
+            // (for many currencies with sparse usage), default 0 -> full rate matrix
+            ExchangeRateManager exchangeRateManager = new ExchangeRateManager(exchangeRates,
+                    Integer.getInteger("bank.rateCacheSize", 0));
+
+            // -Dbank.commandLanes=N -> commands on different accounts run in parallel
+            // on N threads (the results are still written in input order),
+            // default 0 -> the commands run one by one
+            int commandLanes = Integer.getInteger("bank.commandLanes", 0);
+            SequencedOutputSink sequencedOutput = commandLanes > 0
+                    ? new SequencedOutputSink(output) : null;
+
+            // -Dbank.splitTtl=N -> a split payment not accepted by everyone within N
+            // timestamps is rejected, default 0 -> the splits wait forever
+            int splitTtl = Integer.getInteger("bank.splitTtl", 0);
+
+            // Everything this run works with (account / card indexes, split payments,
+            // IBAN / card number generator are created empty for it)
+            BankContext context = new BankContext(users, merchants, exchangeRateManager,
+                    objectMapper, sequencedOutput != null ? sequencedOutput : output, splitTtl);
+            SplitPaymentManager splitPaymentManager = context.getSplitPaymentManager();
+            List<Commerciant> commerciants = merchants.asList();
+
+            // Factory + Invoker for command management (command pattern)
+            // the factory is used to create the commands
+            // the invoker is used to execute the commands
+            CommandFactory commandFactory = new CommandFactory(context);
+            CommandInvoker invoker = new CommandInvoker(commandFactory);
+            LaneExecutionEngine engine = sequencedOutput != null
+                    ? new LaneExecutionEngine(invoker, new AccessAnalyzer(context),
+                            sequencedOutput, users, commerciants, commandLanes)
+                    : null;
+
+            // Here is where the magic happens - executing the commands
+            // (commands are read one by one, straight from the file)
+            try {
+                for (CommandInput command = inputData.nextCommand(); command != null;
+                        command = inputData.nextCommand()) {
+                    while (!rateUpdates.isEmpty()
+                            && rateUpdates.firstKey() <= command.getTimestamp()) {
+                        if (engine != null) {
+                            // the commands before the update use the old rates
+                            engine.awaitIdle();
+                        }
+                        Map.Entry<Integer, List<ExchangeRate>> update
+                                = rateUpdates.pollFirstEntry();
+                        exchangeRateManager.publish(update.getValue(), update.getKey());
+                    }
+                    if (engine != null && splitPaymentManager.hasExpiredBy(
+                            command.getTimestamp())) {
+                        // the expired splits change the accounts of their participants
+                        engine.awaitIdle();
+                    }
+                    splitPaymentManager.expireUntil(command.getTimestamp());
+                    if (engine != null) {
+                        engine.submit(command);
+                    } else {
+                        invoker.executeCommand(users, commerciants, command);
+                    }
+                }
+            } finally {
+                if (engine != null) {
+                    engine.close();
+                }
+            }
         }
-
-        // Writing the output to the file
-        ObjectWriter objectWriter = objectMapper.writerWithDefaultPrettyPrinter();
-        objectWriter.writeValue(new File(filePath2), output);
     }
 
 
@@ -0,0 +1,97 @@
+package org.poo.registry;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks for the balances of the accounts, keyed by IBAN:
+ *  - an IBAN always maps to the same stripe, accounts on different stripes
+ *    never wait for each other (there is no global lock)
+ *  - a command that changes several accounts (sendMoney, split payments...) takes
+ *    all their stripes at once, always in ascending stripe order, so two transfers
+ *    in opposite directions can't deadlock
+ *  - the locks are reentrant, a command can call code that locks the same account again
+ */
+public final class AccountLocks {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final ReentrantLock[] stripes;
+
+    public AccountLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /***
+     * @param stripeCount - how many locks to spread the accounts over
+     *                    (rounded up to a power of two)
+     */
+    public AccountLocks(final int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive: " + stripeCount);
+        }
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /***
+     * Locks the stripes of the given accounts (null IBANs are skipped)
+     * @param ibans - the IBANs of the accounts that will be changed
+     * @return - the held locks, to be closed (try-with-resources) when done
+     */
+    public Held lockAll(final String... ibans) {
+        int[] indexes = new int[ibans.length];
+        int count = 0;
+        for (String iban : ibans) {
+            if (iban != null) {
+                indexes[count++] = stripeOf(iban);
+            }
+        }
+        Arrays.sort(indexes, 0, count);
+
+        ReentrantLock[] locked = new ReentrantLock[count];
+        int held = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && indexes[i] == indexes[i - 1]) {
+                continue; // two accounts on the same stripe
+            }
+            ReentrantLock lock = stripes[indexes[i]];
+            lock.lock();
+            locked[held++] = lock;
+        }
+        return new Held(locked, held);
+    }
+
+    private int stripeOf(final String iban) {
+        int hash = iban.hashCode();
+        return (hash ^ (hash >>> Short.SIZE)) & (stripes.length - 1);
+    }
+
+    /**
+     * Locks taken by lockAll, released in reverse order on close
+     */
+    public static final class Held implements AutoCloseable {
+        private final ReentrantLock[] locks;
+        private final int count;
+
+        private Held(final ReentrantLock[] locks, final int count) {
+            this.locks = locks;
+            this.count = count;
+        }
+
+        /***
+         * Releases the locks
+         */
+        @Override
+        public void close() {
+            for (int i = count - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.poo.registry;
+
+import org.poo.data.Account;
+import org.poo.data.User;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Global index of all the accounts in the bank, keyed by IBAN:
+ *  - Every lookup by IBAN is a single hash lookup instead of a scan
+ *    over every user and every account
+ *  - Remembers the owner of each account (the user that created it)
+ *  - Remembers every user that has the account in his list (the owner and,
+ *    for business accounts, the associates), so an account deleted by one
+ *    of them is still found for the others, just like the old scans did
+ */
+public final class AccountRegistry {
+    private final Map<String, Account> accountsByIban;
+    private final Map<String, User> ownersByIban;
+    private final Map<String, Set<User>> holdersByIban;
+
+    public AccountRegistry() {
+        this.accountsByIban = new HashMap<>();
+        this.ownersByIban = new HashMap<>();
+        this.holdersByIban = new HashMap<>();
+    }
+
+    /***
+     * Registers a newly created account
+     * called when the addAccount command creates the account
+     * @param account - the account to be registered
+     * @param owner - the user that created the account
+     */
+    public void register(final Account account, final User owner) {
+        accountsByIban.put(account.getIban(), account);
+        ownersByIban.put(account.getIban(), owner);
+
+        Set<User> holders = new HashSet<>();
+        holders.add(owner);
+        holdersByIban.put(account.getIban(), holders);
+    }
+
+    /***
+     * Marks that another user has the account in his list
+     * (a new associate of a business account)
+     * @param iban - the iban of the account
+     * @param holder - the user that now sees the account
+     */
+    public void addHolder(final String iban, final User holder) {
+        Set<User> holders = holdersByIban.get(iban);
+        if (holders != null) {
+            holders.add(holder);
+        }
+    }
+
+    /***
+     * Called when a user deletes the account from his list
+     * The account is dropped from the index only when nobody has it anymore
+     * @param iban - the iban of the deleted account
+     * @param holder - the user that deleted it
+     */
+    public void release(final String iban, final User holder) {
+        Set<User> holders = holdersByIban.get(iban);
+        if (holders == null) {
+            return;
+        }
+
+        holders.remove(holder);
+        if (holders.isEmpty()) {
+            accountsByIban.remove(iban);
+            ownersByIban.remove(iban);
+            holdersByIban.remove(iban);
+        }
+    }
+
+    /***
+     * Finds an account by its IBAN
+     * @param iban - the iban we are looking for
+     * @return - the account or null if there is no such account
+     */
+    public Account findAccount(final String iban) {
+        if (iban == null) {
+            return null;
+        }
+        return accountsByIban.get(iban);
+    }
+
+    /***
+     * Finds the user that created the account
+     * @param iban - the iban of the account
+     * @return - the owner or null if there is no such account
+     */
+    public User findOwner(final String iban) {
+        if (iban == null) {
+            return null;
+        }
+        return ownersByIban.get(iban);
+    }
+
+    /***
+     * Checks if the account is in the given user's list
+     * (the user owns it or is an associate)
+     * @param iban - the iban of the account
+     * @param user - the user
+     * @return - true if the user has the account, false otherwise
+     */
+    public boolean isHeldBy(final String iban, final User user) {
+        if (iban == null) {
+            return false;
+        }
+        Set<User> holders = holdersByIban.get(iban);
+        return holders != null && holders.contains(user);
+    }
+}
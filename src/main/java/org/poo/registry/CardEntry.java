@@ -0,0 +1,47 @@
+package org.poo.registry;
+
+import org.poo.data.Account;
+import org.poo.data.Card;
+import org.poo.data.User;
+
+/**
+ * One entry of the card index:
+ *  - the card itself
+ *  - the account the card is attached to
+ *  - the user that created the card (the card holder)
+ */
+public final class CardEntry {
+    private final Card card;
+    private final Account account;
+    private final User owner;
+
+    public CardEntry(final Card card, final Account account, final User owner) {
+        this.card = card;
+        this.account = account;
+        this.owner = owner;
+    }
+
+    /***
+     * getter for the card
+     * @return - the indexed card
+     */
+    public Card getCard() {
+        return card;
+    }
+
+    /***
+     * getter for the account of the card
+     * @return - the account the card is attached to
+     */
+    public Account getAccount() {
+        return account;
+    }
+
+    /***
+     * getter for the card holder
+     * @return - the user that created the card
+     */
+    public User getOwner() {
+        return owner;
+    }
+}
@@ -0,0 +1,63 @@
+package org.poo.registry;
+
+import org.poo.data.Account;
+import org.poo.data.Card;
+import org.poo.data.User;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Global index of all the cards in the bank, keyed by card number:
+ *  - Authorizing a card (payOnline, cashWithdrawal, checkCardStatus) is a single
+ *    hash lookup instead of a walk over every user, account and card
+ *  - Kept in sync on createCard, createOneTimeCard, deleteCard, on the one-time
+ *    card rotation after a payment and when an account is deleted for good
+ */
+public final class CardRegistry {
+    private final Map<String, CardEntry> cardsByNumber;
+
+    public CardRegistry() {
+        this.cardsByNumber = new HashMap<>();
+    }
+
+    /***
+     * Registers a newly created card
+     * @param card - the card to be registered
+     * @param account - the account the card was added to
+     * @param owner - the user that created the card
+     */
+    public void register(final Card card, final Account account, final User owner) {
+        cardsByNumber.put(card.getCardNumber(), new CardEntry(card, account, owner));
+    }
+
+    /***
+     * Removes a card from the index (the card was deleted or rotated)
+     * @param cardNumber - the number of the removed card
+     */
+    public void unregister(final String cardNumber) {
+        cardsByNumber.remove(cardNumber);
+    }
+
+    /***
+     * Removes all the cards of an account that no longer exists
+     * @param account - the deleted account
+     */
+    public void releaseAccount(final Account account) {
+        for (Card card : account.getCards()) {
+            cardsByNumber.remove(card.getCardNumber());
+        }
+    }
+
+    /***
+     * Finds a card by its number
+     * @param cardNumber - the number we are looking for
+     * @return - the card entry or null if there is no such card
+     */
+    public CardEntry find(final String cardNumber) {
+        if (cardNumber == null) {
+            return null;
+        }
+        return cardsByNumber.get(cardNumber);
+    }
+}
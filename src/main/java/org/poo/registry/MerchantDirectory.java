@@ -0,0 +1,53 @@
+package org.poo.registry;
+
+import org.poo.data.Commerciant;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Directory of the commerciants of one bank run:
+ *  - Commerciants are indexed by their name (the name payOnline uses)
+ *  - The list keeps them in the order they were read from the input
+ *  - The ID of a commerciant is its position in that list
+ */
+public final class MerchantDirectory {
+    private final List<Commerciant> commerciants;
+    private final Map<String, Commerciant> commerciantsByName;
+
+    public MerchantDirectory() {
+        this.commerciants = new ArrayList<>();
+        this.commerciantsByName = new HashMap<>();
+    }
+
+    /***
+     * Adds a commerciant to the directory
+     * If two commerciants have the same name, lookups give the last one
+     * @param commerciant - the commerciant to be added
+     */
+    public void add(final Commerciant commerciant) {
+        commerciant.setId(commerciants.size());
+        commerciants.add(commerciant);
+        commerciantsByName.put(commerciant.getName(), commerciant);
+    }
+
+    /***
+     * Finds a commerciant by name
+     * @param name - the name of the commerciant
+     * @return - the commerciant or null if there is none with this name
+     */
+    public Commerciant findByName(final String name) {
+        return commerciantsByName.get(name);
+    }
+
+    /***
+     * The commerciants in input order
+     * @return - a read-only list of the commerciants
+     */
+    public List<Commerciant> asList() {
+        return Collections.unmodifiableList(commerciants);
+    }
+}
@@ -0,0 +1,71 @@
+package org.poo.registry;
+
+import org.poo.data.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Directory of all the users of the bank:
+ *  - Users are indexed by their email, so finding a user is a single hash lookup
+ *  - Emails are compared case-insensitively everywhere (one policy for every command)
+ *  - Iterating the directory gives the users in the order they were read from the input,
+ *    which is the order printUsers has to show them in
+ */
+public final class UserDirectory implements Iterable<User> {
+    private final List<User> users;
+    private final Map<String, User> usersByEmail;
+
+    public UserDirectory() {
+        this.users = new ArrayList<>();
+        this.usersByEmail = new HashMap<>();
+    }
+
+    /***
+     * Adds a user to the directory
+     * If two users have the same email, lookups give the first one
+     * @param user - the user to be added
+     */
+    public void add(final User user) {
+        users.add(user);
+        usersByEmail.putIfAbsent(normalize(user.getEmail()), user);
+    }
+
+    /***
+     * Finds a user by email, ignoring the case of the email
+     * @param email - the email we are looking for
+     * @return - the user or null if there is no user with this email
+     */
+    public User findByEmail(final String email) {
+        if (email == null) {
+            return null;
+        }
+        return usersByEmail.get(normalize(email));
+    }
+
+    /***
+     * getter for the number of users
+     * @return - how many users the bank has
+     */
+    public int size() {
+        return users.size();
+    }
+
+    /***
+     * Iterates the users in input order
+     * @return - a read-only iterator over the users
+     */
+    @Override
+    public Iterator<User> iterator() {
+        return Collections.unmodifiableList(users).iterator();
+    }
+
+    private static String normalize(final String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
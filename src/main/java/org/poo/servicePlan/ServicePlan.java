@@ -0,0 +1,114 @@
+package org.poo.servicePlan;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/***
+ * The service plans of the bank, one shared instance per plan (flyweight)
+ * Every plan is a fixed tier table:
+ *  - the cashback rate for each spending tier (>= 100, >= 300, >= 500 RON)
+ *  - the commission rate and the amount from which the commission is taken
+ * A user only keeps a reference to its plan, so upgrading just swaps the reference
+ * and the cashback / commission are a lookup in the table, whatever the upgrade history
+ */
+public enum ServicePlan implements TransactionService {
+    STANDARD("standard", 0, new double[] {0.001, 0.002, 0.0025}, 0.002, 0.0),
+    STUDENT("student", 0, new double[] {0.001, 0.002, 0.0025}, 0.0, 0.0),
+    SILVER("silver", 1, new double[] {0.003, 0.004, 0.005}, 0.001, 500.0),
+    GOLD("gold", 2, new double[] {0.005, 0.0055, 0.007}, 0.0, 0.0);
+
+    // the spending tiers, lowest first (same for every plan)
+    private static final double[] SPENDING_TIERS = {100.0, 300.0, 500.0};
+
+    private static final Map<String, ServicePlan> BY_NAME = new HashMap<>();
+
+    static {
+        for (ServicePlan plan : values()) {
+            BY_NAME.put(plan.planName, plan);
+        }
+    }
+
+    private final String planName;
+    // standard / student < silver < gold
+    private final int rank;
+    // the cashback rate of each spending tier, in the order of SPENDING_TIERS
+    private final double[] cashbackRates;
+    private final double commissionRate;
+    private final double commissionThreshold;
+
+    ServicePlan(final String planName, final int rank, final double[] cashbackRates,
+                final double commissionRate, final double commissionThreshold) {
+        this.planName = planName;
+        this.rank = rank;
+        this.cashbackRates = cashbackRates;
+        this.commissionRate = commissionRate;
+        this.commissionThreshold = commissionThreshold;
+    }
+
+    /***
+     * getter for the name of the plan, as it appears in the input
+     * @return - the plan name (lower case)
+     */
+    public String getPlanName() {
+        return planName;
+    }
+
+    /***
+     * standard / student < silver < gold
+     * @param other - the other plan
+     * @return - true if this plan is below the other one
+     */
+    public boolean isBelow(final ServicePlan other) {
+        return rank < other.rank;
+    }
+
+    /***
+     * Finds the plan with the given name
+     * @param planName - the name from the input (any case)
+     * @return - the plan or null if there is no such plan
+     */
+    public static ServicePlan fromName(final String planName) {
+        if (planName == null) {
+            return null;
+        }
+        return BY_NAME.get(planName.toLowerCase(Locale.ROOT));
+    }
+
+    /***
+     * The default plan of a new user
+     * @param occupation - the occupation of the user
+     * @return - student for students, standard for everybody else
+     */
+    public static ServicePlan defaultFor(final String occupation) {
+        return "student".equalsIgnoreCase(occupation) ? STUDENT : STANDARD;
+    }
+
+    /***
+     * The cashback of the highest spending tier reached
+     * @param totalSpending - what was spent so far
+     * @param transactionAmount - the amount of the transaction
+     * @return - the cashback, 0 under the first tier
+     */
+    @Override
+    public double applyCashback(final double totalSpending, final double transactionAmount) {
+        for (int tier = SPENDING_TIERS.length - 1; tier >= 0; tier--) {
+            if (totalSpending >= SPENDING_TIERS[tier]) {
+                return transactionAmount * cashbackRates[tier];
+            }
+        }
+        return 0.0;
+    }
+
+    /***
+     * The commission of the plan, taken only from the threshold up
+     * @param transactionAmount - the amount of the transaction
+     * @return - the commission
+     */
+    @Override
+    public double applyCommission(final double transactionAmount) {
+        return transactionAmount >= commissionThreshold
+                ? transactionAmount * commissionRate
+                : 0.0;
+    }
+}
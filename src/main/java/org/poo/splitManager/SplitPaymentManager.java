@@ -1,45 +1,96 @@
 package org.poo.splitManager;
 
 import org.poo.data.Account;
+import org.poo.data.Money;
 import org.poo.data.Operation;
+import org.poo.registry.AccountLocks;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
- * Global manager for split payments:
- *  - Maintains a list of active "pending" split payment requests
- *  - At acceptance/rejection, it searches the first matching request
+ * Manager for the split payments of one bank run (owned by its BankContext):
+ *  - Keeps the "pending" split payment requests indexed by (account, split type),
+ *    each index entry a FIFO queue in creation order (SplitQueue)
+ *  - At acceptance/rejection, the first matching request is the head of one queue
+ *    (constant time, no matter how many splits are pending)
+ *  - A split that is finalized / rejected / expired is unlinked right away from the
+ *    queue of each of its accounts (constant time per account), and the queues and
+ *    accounts left without pending splits are dropped from the index
+ *  - The index is changed under the lock of the manager
  *  - Finalizes the payment when all participants accept
  *  - Cancels it if any user rejects
  *  - If insufficient funds, it sets the error on the operation and rejects
+ *  - The balances of a split are checked and changed under the locks of all its accounts
+ *  - Optionally, a split not fully accepted within a TTL (in command timestamps) expires:
+ *    it is scheduled in a timing wheel when it is added and rejected when it is due;
+ *    a split that is done before that is cancelled from the wheel right away
  */
 public final class SplitPaymentManager {
-    private static SplitPaymentManager instance;
-
-    // A list of all pending splits (not yet finalized or rejected)
-    private final List<SplitPaymentState> pendingSplits;
-
-    private SplitPaymentManager() {
-        this.pendingSplits = new ArrayList<>();
+    // account -> split type (lower case) -> the pending splits of the account, oldest first
+    // (only accounts / types with at least one pending split)
+    private final Map<Account, Map<String, SplitQueue>> pendingSplits;
+    private final AccountLocks accountLocks;
+    // how long a split waits for its acceptances, 0 -> forever
+    private final int splitTtl;
+    // the deadlines of the splits (null if they never expire)
+    private final TimingWheel<SplitPaymentState> expiryWheel;
+
+    public SplitPaymentManager(final AccountLocks accountLocks, final int splitTtl) {
+        this.pendingSplits = new HashMap<>();
+        this.accountLocks = accountLocks;
+        this.splitTtl = splitTtl;
+        this.expiryWheel = splitTtl > 0 ? new TimingWheel<>() : null;
     }
 
-    /***
-     * Singleton pattern
-     * @return
+    /**
+     * Adds a new split payment state to the queues of all its accounts.
      */
-    public static synchronized SplitPaymentManager getInstance() {
-        if (instance == null) {
-            instance = new SplitPaymentManager();
+    public synchronized void addSplit(final SplitPaymentState state) {
+        String type = typeKey(state.getSplitPaymentType());
+        for (Account account : state.getAllAccounts()) {
+            SplitQueue queue = pendingSplits.computeIfAbsent(account, acc -> new HashMap<>())
+                    .computeIfAbsent(type, t -> new SplitQueue());
+            state.setQueueNode(account, queue.append(state));
+        }
+        if (expiryWheel != null) {
+            state.setExpiry(expiryWheel.schedule(state,
+                    (long) state.getCreationTimestamp() + splitTtl));
         }
-        return instance;
     }
 
     /**
-     * Adds a new split payment state to the list of pending splits.
+     * Checks if a split expires before the command with this timestamp.
+     * (the caller has to stop everything touching the accounts before expiring them)
+     *
+     * @param timestamp the timestamp of the next command
+     * @return true if expireUntil would reject at least one split
+     */
+    public synchronized boolean hasExpiredBy(final int timestamp) {
+        return expiryWheel != null && expiryWheel.hasDue(timestamp);
+    }
+
+    /**
+     * Rejects every split that was not fully accepted within the TTL,
+     * called before the command with this timestamp runs.
+     * (splits finalized / rejected in the meantime already left the wheel)
+     *
+     * @param timestamp the timestamp of the next command
      */
-    public void addSplit(final SplitPaymentState state) {
-        pendingSplits.add(state);
+    public synchronized void expireUntil(final int timestamp) {
+        if (expiryWheel != null) {
+            expiryWheel.advanceTo(timestamp, this::expireSplit);
+        }
+    }
+
+    private void expireSplit(final SplitPaymentState state) {
+        if (state.isRejected() || state.isFinalized()) {
+            return;
+        }
+        failSplit(state, "The split payment expired.");
     }
 
     /**
@@ -50,23 +101,49 @@ public final class SplitPaymentManager {
      * @param account          the account searching for a pending request
      * @return the found SplitPaymentState or null if none
      */
-    public SplitPaymentState findPendingSplit(final String splitPaymentType,
-                                              final Account account) {
-        for (SplitPaymentState s : pendingSplits) {
-            if (!s.isRejected() && !s.isFinalized()
-                    && s.getSplitPaymentType().equalsIgnoreCase(splitPaymentType)
-                    && s.getAllAccounts().contains(account)) {
-                return s;
+    public synchronized SplitPaymentState findPendingSplit(final String splitPaymentType,
+                                                           final Account account) {
+        Map<String, SplitQueue> byType = pendingSplits.get(account);
+        if (byType == null) {
+            return null;
+        }
+        SplitQueue queue = byType.get(typeKey(splitPaymentType));
+        return queue != null ? queue.first() : null;
+    }
+
+    // unlinks a split that is done from the queues of all its accounts,
+    // dropping the queues / accounts that are left empty,
+    // and takes its deadline out of the expiry wheel
+    private void removeFromQueues(final SplitPaymentState state) {
+        if (state.getExpiry() != null) {
+            state.getExpiry().cancel();
+            state.setExpiry(null);
+        }
+        String type = typeKey(state.getSplitPaymentType());
+        for (Map.Entry<Account, SplitQueue.Node> entry : state.getQueueNodes().entrySet()) {
+            SplitQueue queue = entry.getValue().getQueue();
+            queue.unlink(entry.getValue());
+            if (queue.isEmpty()) {
+                Map<String, SplitQueue> byType = pendingSplits.get(entry.getKey());
+                byType.remove(type);
+                if (byType.isEmpty()) {
+                    pendingSplits.remove(entry.getKey());
+                }
             }
         }
-        return null;
+        state.getQueueNodes().clear();
+    }
+
+    private static String typeKey(final String splitPaymentType) {
+        return splitPaymentType.toLowerCase(Locale.ROOT);
     }
 
     /**
      * Marks the given account as accepting the split.
      * If all participants have accepted, the payment is finalized (or tries to finalize).
      */
-    public void acceptSplit(final SplitPaymentState state, final Account account) {
+    public synchronized void acceptSplit(final SplitPaymentState state,
+                                         final Account account) {
         state.accept(account);
         if (state.isFullyAccepted()) {
             finalizeSplit(state);
@@ -74,11 +151,15 @@ public final class SplitPaymentManager {
     }
 
     /**
-     * Marks the split as rejected and removes it from the pending list.
+     * Marks the split as rejected (so it is no longer pending for any account).
      */
-    public void rejectSplit(final SplitPaymentState state) {
-        String msg = "One user rejected the payment.";
+    public synchronized void rejectSplit(final SplitPaymentState state) {
+        failSplit(state, "One user rejected the payment.");
+    }
 
+    // the error goes on the operation, which moves from pending to the account history,
+    // and the split leaves the queues
+    private void failSplit(final SplitPaymentState state, final String msg) {
         Operation op = state.getPendingOperation();
         op.setError(msg);
         state.reject();
@@ -86,64 +167,65 @@ public final class SplitPaymentManager {
             acc.removePendingOperation(op);
             acc.addOperation(op);
         }
-        pendingSplits.remove(state);
+        removeFromQueues(state);
     }
 
     /**
      * Finalizes the split payment:
-     *  - Checks each account's balance
-     *  - If any account has insufficient funds, we set an error on the operation,
-     *    reject the split, and remove from pending
-     *  - Otherwise, subtract amounts and move the operation from "pending" to "completed"
-     *  - Remove the split request from the list
+     *  - Takes each account's share with tryRemoveFunds (check + debit in one step)
+     *  - If any account has insufficient funds, the shares already taken are given
+     *    back, we set an error on the operation, reject the split, and remove from pending
+     *  - Otherwise, move the operation from "pending" to "completed"
+     *  - Remove the split request from the queues of its accounts
      */
     private void finalizeSplit(final SplitPaymentState state) {
-        // 1) Check if any account has insufficient funds
+        // the check and the payments are one step for every account involved
+        String[] ibans = state.getAllAccounts().stream().map(Account::getIban)
+                .toArray(String[]::new);
+        try (AccountLocks.Held held = accountLocks.lockAll(ibans)) {
+            finalizeSplitLocked(state);
+        }
+    }
+
+    private void finalizeSplitLocked(final SplitPaymentState state) {
+        // 1) Take every share, the check and the debit in one step for each account;
+        // the first account without enough funds stops the split
+        List<Account> paid = new ArrayList<>();
         Account insufficientAccount = null;
         for (Account acc : state.getAllAccounts()) {
-            double amount = state.getSplitMap().get(acc);
-            if (acc.getBalance() < amount) {
+            if (!acc.tryRemoveFunds(state.getSplitMap().get(acc))) {
                 insufficientAccount = acc;
                 break;
             }
+            paid.add(acc);
         }
 
         if (insufficientAccount != null) {
+            // the shares already taken are given back, exactly
+            for (Account acc : paid) {
+                acc.addFundsMinor(Money.toMinor(state.getSplitMap().get(acc)));
+            }
+
             // We found an account with not enough balance
             String msg = "Account " + insufficientAccount.getIban()
                     + " has insufficient funds for a split payment.";
 
-            Operation op = state.getPendingOperation();
             // Instead of instanceof, we rely on op.setError(...)
             // which is overridden in SplitCustomPaymentOperation,
-            op.setError(msg);
-
-            // Mark the state as rejected
-            state.reject();
-            pendingSplits.remove(state);
-
-            // Remove from pending in each account
-            for (Account acc : state.getAllAccounts()) {
-                acc.removePendingOperation(op);
-                acc.addOperation(op);
-            }
+            // then the split is rejected, leaves pending and the queues
+            failSplit(state, msg);
 
             return; // stop here
         }
 
-        // 2) If all accounts have enough funds, finalize
+        // 2) Everybody paid, the operation moves from pending to the history
         for (Account acc : state.getAllAccounts()) {
-            double amount = state.getSplitMap().get(acc);
-            acc.removeFunds(amount);
-
             acc.removePendingOperation(state.getPendingOperation());
             acc.addOperation(state.getPendingOperation());
         }
 
-        // 3) Mark as finalized
+        // 3) Mark as finalized and remove the split request from the queues
         state.setFinalized(true);
-
-        // 4) Remove from manager
-        pendingSplits.remove(state);
+        removeFromQueues(state);
     }
 }
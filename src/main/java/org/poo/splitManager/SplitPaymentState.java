@@ -3,6 +3,7 @@ package org.poo.splitManager;
 import org.poo.data.Account;
 import org.poo.data.Operation;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -25,10 +26,15 @@ public class SplitPaymentState {
     // not specifically SplitEqualPaymentOperation
 
     private final Set<Account> acceptedAccounts; // who has accepted
-    private boolean rejected;                   // did someone reject?
-    private boolean finalized;                  // is it finalized?
+    private volatile boolean rejected;          // did someone reject?
+    private volatile boolean finalized;         // is it finalized?
 
-    private final int creationTimestamp;        // for logging if needed
+    private final int creationTimestamp;        // start of the expiry TTL
+
+    // the place of the split in the queue of each account, while it is pending
+    private final Map<Account, SplitQueue.Node> queueNodes;
+    // its deadline in the expiry wheel, null if splits never expire
+    private TimingWheel.Timeout<SplitPaymentState> expiry;
 
     /**
      * Constructs the split payment state.
@@ -53,6 +59,40 @@ public class SplitPaymentState {
         this.rejected = false;
         this.finalized = false;
         this.creationTimestamp = creationTimestamp;
+        this.queueNodes = new HashMap<>();
+    }
+
+    /***
+     * set by the SplitPaymentManager when the split is queued for an account
+     * @param account
+     * @param node - the place of the split in the queue of the account
+     */
+    void setQueueNode(final Account account, final SplitQueue.Node node) {
+        queueNodes.put(account, node);
+    }
+
+    /***
+     * the nodes to unlink when the split is done
+     * @return
+     */
+    Map<Account, SplitQueue.Node> getQueueNodes() {
+        return queueNodes;
+    }
+
+    /***
+     * set by the SplitPaymentManager when the split is scheduled to expire
+     * @param expiry - the handle of its deadline in the expiry wheel
+     */
+    void setExpiry(final TimingWheel.Timeout<SplitPaymentState> expiry) {
+        this.expiry = expiry;
+    }
+
+    /***
+     * the deadline to cancel when the split is done
+     * @return - the handle or null if the split never expires
+     */
+    TimingWheel.Timeout<SplitPaymentState> getExpiry() {
+        return expiry;
     }
 
     /***
@@ -106,6 +146,15 @@ public class SplitPaymentState {
         return finalized;
     }
 
+    /***
+     * getter for the creation timestamp
+     * the split expires splitTtl after it (if the TTL is set)
+     * @return
+     */
+    public int getCreationTimestamp() {
+        return creationTimestamp;
+    }
+
     /***
      * setter for finalized
      * @param finalized
@@ -0,0 +1,83 @@
+package org.poo.splitManager;
+
+/**
+ * The pending splits of one account and one split type, oldest first,
+ * as an intrusive doubly linked list:
+ *  - every split keeps its node in the queue of each of its accounts
+ *    (SplitPaymentState.getQueueNode), so a split that is done is unlinked
+ *    from all of them in constant time, wherever it is in the queue
+ *  - only live splits are in the queue, the head is the first pending one
+ * Not thread safe, used under the lock of the SplitPaymentManager
+ */
+final class SplitQueue {
+    private Node head;
+    private Node tail;
+
+    // The place of one split in one queue
+    static final class Node {
+        private final SplitPaymentState state;
+        private final SplitQueue queue;
+        private Node prev;
+        private Node next;
+
+        private Node(final SplitPaymentState state, final SplitQueue queue) {
+            this.state = state;
+            this.queue = queue;
+        }
+
+        SplitQueue getQueue() {
+            return queue;
+        }
+    }
+
+    /***
+     * Adds a split at the end of the queue
+     * @param state - the split
+     * @return - its node, to unlink it later
+     */
+    Node append(final SplitPaymentState state) {
+        Node node = new Node(state, this);
+        node.prev = tail;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+        return node;
+    }
+
+    /***
+     * Takes a node out of the queue (constant time)
+     * @param node - a node of this queue
+     */
+    void unlink(final Node node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    /***
+     * The oldest split of the queue
+     * @return - the split or null if the queue is empty
+     */
+    SplitPaymentState first() {
+        return head != null ? head.state : null;
+    }
+
+    /***
+     * @return - true if no split is left in the queue
+     */
+    boolean isEmpty() {
+        return head == null;
+    }
+}
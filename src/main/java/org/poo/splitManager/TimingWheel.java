@@ -0,0 +1,188 @@
+package org.poo.splitManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel, driven by the timestamps of the commands (not by a clock):
+ *  - a fixed ring of slots, an item with deadline d goes in slot d % size
+ *  - moving the wheel to a timestamp only visits the slots of the ticks passed
+ *    (at most one lap), and in them only the items that are due are taken out
+ *  - taking an item out is a swap with the last one of its slot (constant time),
+ *    so the wheel keeps no reference to it after that
+ *  - schedule gives back a handle, an item that is no longer needed (e.g. a split
+ *    that was finalized) is cancelled with it right away, not left until its deadline
+ * Not thread safe, it is used from the thread that reads the commands
+ *
+ * @param <T> what is scheduled
+ */
+public final class TimingWheel<T> {
+    private static final int DEFAULT_SLOTS = 256;
+
+    private final List<List<Timeout<T>>> slots;
+    private final int mask;
+    // the last timestamp the wheel was moved to
+    private long current;
+    private long nextSequence;
+    private int size;
+
+    public TimingWheel() {
+        this(DEFAULT_SLOTS);
+    }
+
+    /**
+     * @param slots the number of slots (rounded up to a power of two)
+     */
+    public TimingWheel(final int slots) {
+        int count = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.slots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            this.slots.add(new ArrayList<>());
+        }
+        this.mask = count - 1;
+        this.current = Long.MIN_VALUE;
+    }
+
+    /***
+     * Schedules an item for the given deadline
+     * if the deadline already passed, it is due the next time the wheel moves
+     * @param item - what is scheduled
+     * @param deadline - the timestamp from which the item is due
+     * @return - the handle to cancel the item before it is due
+     */
+    public Timeout<T> schedule(final T item, final long deadline) {
+        long tick = current == Long.MIN_VALUE ? deadline : Math.max(deadline, current + 1);
+        List<Timeout<T>> slot = slotOf(tick);
+        Timeout<T> timeout = new Timeout<>(this, item, deadline, nextSequence++);
+        timeout.slot = slot;
+        timeout.index = slot.size();
+        slot.add(timeout);
+        size++;
+        return timeout;
+    }
+
+    /***
+     * Checks if moving the wheel to this timestamp would take anything out
+     * @param now - the timestamp of the next command
+     * @return - true if at least one item is due
+     */
+    public boolean hasDue(final long now) {
+        if (size == 0) {
+            return false;
+        }
+        for (List<Timeout<T>> slot : slotsUntil(now)) {
+            for (Timeout<T> entry : slot) {
+                if (entry.deadline <= now) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /***
+     * Moves the wheel to the given timestamp and hands over every item that is due,
+     * in the order they were scheduled
+     * @param now - the timestamp of the next command
+     * @param onExpire - what is done with every due item
+     */
+    public void advanceTo(final long now, final Consumer<T> onExpire) {
+        if (size == 0) {
+            current = Math.max(current, now);
+            return;
+        }
+        List<Timeout<T>> due = new ArrayList<>();
+        for (List<Timeout<T>> slot : slotsUntil(now)) {
+            int i = 0;
+            while (i < slot.size()) {
+                Timeout<T> entry = slot.get(i);
+                if (entry.deadline <= now) {
+                    due.add(entry);
+                    remove(entry);
+                } else {
+                    i++;
+                }
+            }
+        }
+        current = Math.max(current, now);
+
+        due.sort(Comparator.comparingLong(entry -> entry.sequence));
+        for (Timeout<T> entry : due) {
+            onExpire.accept(entry.item);
+        }
+    }
+
+    /***
+     * getter for the number of items still in the wheel
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    // takes an entry out of its slot: the last item of the slot takes its place
+    private void remove(final Timeout<T> entry) {
+        List<Timeout<T>> slot = entry.slot;
+        Timeout<T> last = slot.remove(slot.size() - 1);
+        if (last != entry) {
+            slot.set(entry.index, last);
+            last.index = entry.index;
+        }
+        entry.slot = null;
+        size--;
+    }
+
+    // the slots of the ticks in (current, now], each one once
+    private List<List<Timeout<T>>> slotsUntil(final long now) {
+        if (current == Long.MIN_VALUE || now - current > mask) {
+            return slots;
+        }
+        List<List<Timeout<T>>> passed = new ArrayList<>();
+        for (long tick = current + 1; tick <= now; tick++) {
+            passed.add(slotOf(tick));
+        }
+        return passed;
+    }
+
+    private List<Timeout<T>> slotOf(final long tick) {
+        return slots.get((int) (tick & mask));
+    }
+
+    /**
+     * One scheduled item, and the handle to cancel it
+     *
+     * @param <T> what is scheduled
+     */
+    public static final class Timeout<T> {
+        private final TimingWheel<T> wheel;
+        private final T item;
+        private final long deadline;
+        private final long sequence;
+        // the slot it is in and its place there, null once it is out of the wheel
+        private List<Timeout<T>> slot;
+        private int index;
+
+        private Timeout(final TimingWheel<T> wheel, final T item, final long deadline,
+                        final long sequence) {
+            this.wheel = wheel;
+            this.item = item;
+            this.deadline = deadline;
+            this.sequence = sequence;
+        }
+
+        /***
+         * Takes the item out of the wheel before it is due (constant time),
+         * it will never be handed over
+         * @return - false if it was already handed over or cancelled
+         */
+        public boolean cancel() {
+            if (slot == null) {
+                return false;
+            }
+            wheel.remove(this);
+            return true;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.poo.splitStrategy;
 
+import org.poo.currencyExchange.Currency;
 import org.poo.currencyExchange.ExchangeRateManager;
 import org.poo.data.Account;
 import org.poo.fileio.CommandInput;
@@ -30,7 +31,7 @@ public class CustomSplitPaymentStrategy implements SplitPaymentStrategy {
         if (amounts == null || amounts.size() != accounts.size()) {
             throw new IllegalArgumentException("Mismatch between accounts and custom amounts");
         }
-        String baseCurrency = command.getCurrency();
+        Currency baseCurrency = exchangeRateManager.currencyOf(command.getCurrency());
 
         Map<Account, Double> result = new HashMap<>();
         for (int i = 0; i < accounts.size(); i++) {
@@ -38,9 +39,10 @@ public class CustomSplitPaymentStrategy implements SplitPaymentStrategy {
             double portion = amounts.get(i);
 
             // Convert if the account's currency differs
-            if (!acc.getCurrency().equals(baseCurrency)) {
-                double rate = exchangeRateManager.getExchangeRate(baseCurrency, acc.getCurrency());
-                if (rate < 0) {
+            if (acc.getCurrencyHandle() != baseCurrency) {
+                double rate = exchangeRateManager.getExchangeRate(baseCurrency,
+                        acc.getCurrencyHandle());
+                if (Double.isNaN(rate)) {
                     throw new RuntimeException("No exchange rate for " + acc.getCurrency());
                 }
                 portion *= rate;
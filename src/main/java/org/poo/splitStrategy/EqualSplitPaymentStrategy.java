@@ -1,5 +1,6 @@
 package org.poo.splitStrategy;
 
+import org.poo.currencyExchange.Currency;
 import org.poo.currencyExchange.ExchangeRateManager;
 import org.poo.data.Account;
 import org.poo.fileio.CommandInput;
@@ -26,16 +27,17 @@ public class EqualSplitPaymentStrategy implements SplitPaymentStrategy {
                                                final CommandInput command,
                                                final ExchangeRateManager exchangeRateManager) {
         double total = command.getAmount();
-        String baseCurrency = command.getCurrency();
+        Currency baseCurrency = exchangeRateManager.currencyOf(command.getCurrency());
         double share = total / accounts.size();
 
         Map<Account, Double> result = new HashMap<>();
         for (Account acc : accounts) {
             double portion = share;
             // Convert if the account's currency differs
-            if (!acc.getCurrency().equals(baseCurrency)) {
-                double rate = exchangeRateManager.getExchangeRate(baseCurrency, acc.getCurrency());
-                if (rate < 0) {
+            if (acc.getCurrencyHandle() != baseCurrency) {
+                double rate = exchangeRateManager.getExchangeRate(baseCurrency,
+                        acc.getCurrencyHandle());
+                if (Double.isNaN(rate)) {
                     throw new RuntimeException("No exchange rate for " + acc.getCurrency());
                 }
                 portion *= rate;
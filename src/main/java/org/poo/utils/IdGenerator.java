@@ -2,11 +2,12 @@ package org.poo.utils;
 
 import java.util.Random;
 
-public final class Utils {
-    private Utils() {
-        // Checkstyle error free constructor
-    }
-
+/**
+ * Seeded generator for the IBANs and card numbers of one bank run:
+ *  - every run has its own generator, so runs in parallel don't share the random state
+ *  - fixed seeds (1 for IBANs, 2 for card numbers), so the same input gives the same numbers
+ */
+public final class IdGenerator {
     private static final int IBAN_SEED = 1;
     private static final int CARD_SEED = 2;
     private static final int DIGIT_BOUND = 10;
@@ -14,16 +15,20 @@ public final class Utils {
     private static final String RO_STR = "RO";
     private static final String POO_STR = "POOB";
 
+    private final Random ibanRandom;
+    private final Random cardRandom;
 
-    private static Random ibanRandom = new Random(IBAN_SEED);
-    private static Random cardRandom = new Random(CARD_SEED);
+    public IdGenerator() {
+        this.ibanRandom = new Random(IBAN_SEED);
+        this.cardRandom = new Random(CARD_SEED);
+    }
 
     /**
-     * Utility method for generating an IBAN code.
+     * Generates an IBAN code.
      *
      * @return the IBAN as String
      */
-    public static String generateIBAN() {
+    public String generateIBAN() {
         StringBuilder sb = new StringBuilder(RO_STR);
         for (int i = 0; i < RO_STR.length(); i++) {
             sb.append(ibanRandom.nextInt(DIGIT_BOUND));
@@ -38,11 +43,11 @@ public final class Utils {
     }
 
     /**
-     * Utility method for generating a card number.
+     * Generates a card number.
      *
      * @return the card number as String
      */
-    public static String generateCardNumber() {
+    public String generateCardNumber() {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < DIGIT_GENERATION; i++) {
             sb.append(cardRandom.nextInt(DIGIT_BOUND));
@@ -50,12 +55,4 @@ public final class Utils {
 
         return sb.toString();
     }
-
-    /**
-     * Resets the seeds between runs.
-     */
-    public static void resetRandom() {
-        ibanRandom = new Random(IBAN_SEED);
-        cardRandom = new Random(CARD_SEED);
-    }
 }